@@ -30,8 +30,10 @@ import gg.airplaines.tournaments.game.arena.ArenaManager;
 import gg.airplaines.tournaments.game.kit.KitManager;
 import gg.airplaines.tournaments.game.lobby.LobbyManager;
 import gg.airplaines.tournaments.game.tournament.DuelEventManager;
+import gg.airplaines.tournaments.game.tournament.challonge.ChallongeClient;
 import gg.airplaines.tournaments.listeners.*;
 import gg.airplaines.tournaments.settings.ConfigManager;
+import gg.airplaines.tournaments.utils.WorldCopier;
 import gg.airplaines.tournaments.utils.chat.ChatUtils;
 import gg.airplaines.tournaments.utils.gui.GUIListeners;
 import gg.airplaines.tournaments.utils.scoreboard.ScoreboardUpdate;
@@ -39,6 +41,7 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 public final class TournamentsPlugin extends JavaPlugin {
     private ArenaManager arenaManager;
+    private ChallongeClient challongeClient;
     private DuelEventManager duelEventManager;
     private ConfigManager configManager;
     private KitManager kitManager;
@@ -55,9 +58,19 @@ public final class TournamentsPlugin extends JavaPlugin {
         this.gameManager = new GameManager(this);
         this.duelEventManager = new DuelEventManager(this);
         this.lobbyManager = new LobbyManager(this);
+        this.challongeClient = new ChallongeClient(this);
 
         arenaManager.loadArenas();
 
+        // Removes game worlds left behind by a crash.
+        gameManager.worldDeletion().sweep();
+
+        // Picks up a tournament that was still running when the server stopped.
+        duelEventManager.resume();
+
+        // Connects to Challonge ahead of the first tournament.
+        challongeClient.warmUp();
+
         // Updates scoreboards every second
         new ScoreboardUpdate().runTaskTimer(this, 20L, 20L);
 
@@ -68,6 +81,18 @@ public final class TournamentsPlugin extends JavaPlugin {
     @Override
     public void onDisable() {
         // Plugin shutdown logic
+        if(duelEventManager.activeEvent() != null) {
+            duelEventManager.activeEvent().checkpoint();
+            duelEventManager.activeEvent().journal().close(false);
+        }
+        duelEventManager.ratingTable().save();
+        gameManager.worldPool().clear();
+        if(gameManager.arenaGrid() != null) {
+            gameManager.arenaGrid().clear();
+        }
+        gameManager.worldDeletion().shutdown();
+        challongeClient.shutdown();
+        WorldCopier.shutdown();
         ChatUtils.disable();
     }
 
@@ -90,12 +115,17 @@ public final class TournamentsPlugin extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new ProjectileLaunchListener(this), this);
         getServer().getPluginManager().registerEvents(new VehicleDamageListener(this), this);
         getServer().getPluginManager().registerEvents(new VehicleExitListener(this), this);
+        getServer().getPluginManager().registerEvents(new WorldInitListener(this), this);
     }
 
     public ArenaManager arenaManager() {
         return arenaManager;
     }
 
+    public ChallongeClient challongeClient() {
+        return challongeClient;
+    }
+
     public ConfigManager settingsManager() {
         return this.configManager;
     }
@@ -57,11 +57,13 @@ public abstract class AbstractCommand implements CommandExecutor {
      */
     public static void registerCommands(TournamentsPlugin pl) {
         plugin = pl;
+        new AdmissionCMD(pl);
         new ArenaCMD(pl);
         new ArenasCMD(pl);
         new BracketCMD(pl);
         new CreateCMD(pl);
         new CancelCMD(pl);
+        new MetricsCMD(pl);
         new StartCMD(pl);
     }
 
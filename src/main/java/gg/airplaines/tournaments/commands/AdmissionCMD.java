@@ -0,0 +1,68 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.commands;
+
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.AdmissionController;
+import gg.airplaines.tournaments.utils.chat.ChatUtils;
+import org.bukkit.command.CommandSender;
+
+/**
+ * This class runs the /admission command, which shows what decides when new tournament games are started.
+ */
+public class AdmissionCMD extends AbstractCommand {
+    private final TournamentsPlugin plugin;
+
+    /**
+     * Creates the command.
+     * @param plugin Instance of the plugin.
+     */
+    public AdmissionCMD(TournamentsPlugin plugin) {
+        super("admission", "duels.admin", true);
+        this.plugin = plugin;
+    }
+
+    /**
+     * Executes the command.
+     * @param sender The Command Sender.
+     * @param args Arguments of the command.
+     */
+    @Override
+    public void execute(CommandSender sender, String[] args) {
+        AdmissionController admissionController = plugin.gameManager().admissionController();
+
+        ChatUtils.chat(sender, "<aqua><bold>Tournaments</bold> <dark_gray>» <aqua>Admission:");
+        ChatUtils.chat(sender, "  <dark_gray>➤ <gray>Games: <white>" + (plugin.gameManager().activeGames().size() + plugin.gameManager().pendingGames() + plugin.gameManager().reservedGames()) + "<gray>/<white>" + admissionController.maxGames() + " <dark_gray>| <gray>Reserved: <white>" + plugin.gameManager().reservedGames());
+        ChatUtils.chat(sender, "  <dark_gray>➤ <gray>Tick Time: <white>" + String.format("%.1f", admissionController.averageTickTime()) + " ms <gray>(<white>" + String.format("%.1f", admissionController.tps()) + " TPS<gray>) <dark_gray>| <gray>Limit: <white>" + String.format("%.0f", admissionController.maxTickTime()) + " ms");
+        ChatUtils.chat(sender, "  <dark_gray>➤ <gray>Free Memory: <white>" + Math.round(admissionController.freeMemory() * 100) + "% <dark_gray>| <gray>Minimum: <white>" + Math.round(admissionController.minFreeMemory() * 100) + "%");
+        ChatUtils.chat(sender, "  <dark_gray>➤ <gray>Loading Worlds: <white>" + plugin.gameManager().pendingGames() + "<gray>/<white>" + admissionController.maxPendingWorlds() + " <dark_gray>| <gray>Pooled: <white>" + plugin.gameManager().worldPool().readyWorlds());
+        ChatUtils.chat(sender, "  <dark_gray>➤ <gray>Last Decision: <white>" + admissionController.lastDecision().displayName());
+
+        // How often each decision was made.
+        for(AdmissionController.Decision decision : AdmissionController.Decision.values()) {
+            ChatUtils.chat(sender, "    <dark_gray>- <gray>" + decision.displayName() + ": <white>" + admissionController.decisions(decision));
+        }
+    }
+}
\ No newline at end of file
@@ -25,6 +25,9 @@
 package gg.airplaines.tournaments.commands;
 
 import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketMatch;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketProvider;
+import gg.airplaines.tournaments.game.tournament.bracket.ChallongeBracketProvider;
 import gg.airplaines.tournaments.utils.chat.ChatUtils;
 import org.bukkit.command.CommandSender;
 
@@ -43,7 +46,28 @@ public class BracketCMD extends AbstractCommand {
             return;
         }
 
-        String url = "https://challonge.com/" + plugin.duelEventManager().activeEvent().tournament().getUrl();
-        ChatUtils.chat(sender, "&b&lTournament&8» &bBracket: &f<click:open_url:'" + url + "'>" + url + "</click>");
+        BracketProvider bracket = plugin.duelEventManager().activeEvent().bracket();
+
+        // Links to the hosted bracket if there is one.
+        if(bracket.url() != null) {
+            ChatUtils.chat(sender, "&b&lTournament&8» &bBracket: &f<click:open_url:'" + bracket.url() + "'>" + bracket.url() + "</click>");
+
+            // Falls back to the local matches when the hosted bracket can't be trusted.
+            if(!(bracket instanceof ChallongeBracketProvider challongeBracket) || challongeBracket.divergedMatches() == 0) {
+                return;
+            }
+
+            ChatUtils.chat(sender, "&e&lWarning &8» &eThe online bracket is missing " + challongeBracket.divergedMatches() + " matches and may be out of date.");
+        }
+
+        // Otherwise lists the matches that are currently waiting or being played.
+        ChatUtils.chat(sender, "&b&lTournament&8» &bCurrent Matches:");
+        for(BracketMatch match : bracket.matches()) {
+            if(match.state() != BracketMatch.State.OPEN && match.state() != BracketMatch.State.UNDERWAY) {
+                continue;
+            }
+
+            ChatUtils.chat(sender, "  &b" + match.displayName() + ": &f" + match.team1().name() + " &7vs &f" + match.team2().name());
+        }
     }
 }
\ No newline at end of file
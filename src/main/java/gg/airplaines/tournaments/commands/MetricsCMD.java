@@ -0,0 +1,99 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.commands;
+
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.AdmissionController;
+import gg.airplaines.tournaments.game.arena.file.ArenaTemplateCache;
+import gg.airplaines.tournaments.game.tournament.bracket.ChallongeBracketProvider;
+import gg.airplaines.tournaments.game.tournament.challonge.ChallongeMirror;
+import gg.airplaines.tournaments.game.world.ArenaGrid;
+import gg.airplaines.tournaments.game.world.ArenaWorldPool;
+import gg.airplaines.tournaments.game.world.WorldDeletionService;
+import gg.airplaines.tournaments.utils.chat.ChatUtils;
+import gg.airplaines.tournaments.utils.scoreboard.ScoreHelper;
+import org.bukkit.command.CommandSender;
+
+/**
+ * This class runs the /metrics command, which displays performance counters for the plugin.
+ */
+public class MetricsCMD extends AbstractCommand {
+    private final TournamentsPlugin plugin;
+
+    /**
+     * Creates the command.
+     * @param plugin Instance of the plugin.
+     */
+    public MetricsCMD(TournamentsPlugin plugin) {
+        super("metrics", "duels.admin", true);
+        this.plugin = plugin;
+    }
+
+    /**
+     * Executes the command.
+     * @param sender The Command Sender.
+     * @param args Arguments of the command.
+     */
+    @Override
+    public void execute(CommandSender sender, String[] args) {
+        ChatUtils.chat(sender, "<aqua><bold>Tournaments</bold> <dark_gray>» <aqua>Metrics:");
+
+        // Admission.
+        AdmissionController admissionController = plugin.gameManager().admissionController();
+        ChatUtils.chat(sender, "  <dark_gray>➤ <gray>Admission: <white>" + admissionController.lastDecision().displayName() + " <dark_gray>| <gray>Admitted: <white>" + admissionController.decisions(AdmissionController.Decision.ADMITTED) + " <dark_gray>| <gray>Tick Time: <white>" + String.format("%.1f", admissionController.averageTickTime()) + " ms");
+
+        // World pool.
+        ArenaWorldPool worldPool = plugin.gameManager().worldPool();
+        ChatUtils.chat(sender, "  <dark_gray>➤ <gray>World Pool: <white>" + worldPool.readyWorlds() + " ready <dark_gray>| <gray>Hits: <white>" + worldPool.hits() + " <dark_gray>| <gray>Misses: <white>" + worldPool.misses() + " <dark_gray>| <gray>Recycled: <white>" + worldPool.recycled());
+
+        // Arena grid.
+        ArenaGrid arenaGrid = plugin.gameManager().arenaGrid();
+        if(arenaGrid != null) {
+            ChatUtils.chat(sender, "  <dark_gray>➤ <gray>Arena Grid: <white>" + arenaGrid.usedCells() + " cells in use <dark_gray>| <gray>Free: <white>" + arenaGrid.freeCells() + " <dark_gray>| <gray>Quarantined: <white>" + arenaGrid.quarantinedCells());
+        }
+
+        // World deletion.
+        WorldDeletionService worldDeletion = plugin.gameManager().worldDeletion();
+        ChatUtils.chat(sender, "  <dark_gray>➤ <gray>World Deletion: <white>" + worldDeletion.queueDepth() + " queued <dark_gray>| <gray>Reclaimed: <white>" + (worldDeletion.bytesReclaimed() / 1024 / 1024) + " MB <dark_gray>| <gray>Links Removed: <white>" + worldDeletion.linksRemoved());
+
+        // Arena template cache.
+        ArenaTemplateCache templateCache = plugin.arenaManager().arenaFileManager().templateCache();
+        if(templateCache != null) {
+            ChatUtils.chat(sender, "  <dark_gray>➤ <gray>Template Cache: <white>" + (templateCache.cachedBytes() / 1024 / 1024) + " MB <dark_gray>| <gray>Hits: <white>" + templateCache.hits() + " <dark_gray>| <gray>Misses: <white>" + templateCache.misses());
+        }
+
+        // Scoreboards.
+        long renders = ScoreHelper.renders();
+        long skips = ScoreHelper.skips();
+        long skipped = renders + skips == 0 ? 0 : skips * 100 / (renders + skips);
+        ChatUtils.chat(sender, "  <dark_gray>➤ <gray>Scoreboards: <white>" + renders + " lines sent <dark_gray>| <gray>Skipped: <white>" + skips + " <gray>(" + skipped + "%)");
+
+        // Challonge mirror.
+        if(plugin.duelEventManager().activeEvent() != null && plugin.duelEventManager().activeEvent().bracket() instanceof ChallongeBracketProvider challongeBracket) {
+            ChallongeMirror mirror = challongeBracket.mirror();
+            ChatUtils.chat(sender, "  <dark_gray>➤ <gray>Challonge: <white>" + mirror.size() + " matches mirrored <dark_gray>| <gray>Syncs: <white>" + mirror.syncs() + " <dark_gray>| <gray>Calls Saved: <white>" + mirror.apiCallsSaved() + " <dark_gray>| <gray>Retries: <white>" + challongeBracket.client().retries() + " <dark_gray>| <gray>Diverged: <white>" + challongeBracket.divergedMatches());
+        }
+    }
+}
\ No newline at end of file
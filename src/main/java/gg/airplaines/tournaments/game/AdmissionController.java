@@ -0,0 +1,340 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game;
+
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.arena.Arena;
+import gg.airplaines.tournaments.game.kit.Kit;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketMatch;
+import gg.airplaines.tournaments.game.world.ArenaGrid;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Decides whether a new game can be started right now, or has to wait until the server has room for it.
+ * Looks at recent tick times, free memory, how many game worlds are still being created and how busy each arena is.
+ */
+public class AdmissionController {
+    /**
+     * Number of ticks the average tick time is taken over.
+     */
+    private static final int TICK_SAMPLES = 100;
+
+    private final TournamentsPlugin plugin;
+    private final int maxGames;
+    private final int maxGamesPerArena;
+    private final double maxTickTime;
+    private final double minFreeMemory;
+    private final int maxPendingWorlds;
+    private final long[] tickTimes = new long[TICK_SAMPLES];
+    private final AtomicLongArray decisions = new AtomicLongArray(Decision.values().length);
+    private int tickIndex = 0;
+    private int tickCount = 0;
+    private long lastTick = 0;
+    private volatile double averageTickTime = 50;
+    private volatile Decision lastDecision = Decision.ADMITTED;
+
+    /**
+     * Creates the admission controller, and starts measuring tick times.
+     * @param plugin Instance of the plugin.
+     */
+    public AdmissionController(final TournamentsPlugin plugin) {
+        this.plugin = plugin;
+        this.maxGames = Math.max(1, plugin.settingsManager().getConfig().getInt("admission.max-games", 14));
+        this.maxGamesPerArena = Math.max(0, plugin.settingsManager().getConfig().getInt("admission.max-games-per-arena", 0));
+        this.maxTickTime = Math.max(50, plugin.settingsManager().getConfig().getDouble("admission.max-tick-time", 60));
+        this.minFreeMemory = Math.min(1, Math.max(0, plugin.settingsManager().getConfig().getDouble("admission.min-free-memory", 0.15)));
+        this.maxPendingWorlds = Math.max(1, plugin.settingsManager().getConfig().getInt("admission.max-pending-worlds", 4));
+
+        plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1, 1);
+    }
+
+    /**
+     * Decides whether another game can be started, and which arena it should be played in.
+     * Room is reserved for an admitted game until it is created, so the game has to be created with
+     * GameManager#createGame, or released with GameManager#release if it won't be.
+     * @param kit Kit the game will use.
+     * @return Decision, with the arena to use if the game was admitted.
+     */
+    public synchronized Admission admit(Kit kit) {
+        Decision decision = check();
+        Arena arena = null;
+
+        if(decision == Decision.ADMITTED) {
+            arena = arena(kit);
+
+            if(arena == null) {
+                decision = Decision.ARENA_CAPACITY;
+            }
+            else {
+                plugin.gameManager().reserve(arena);
+            }
+        }
+
+        decisions.incrementAndGet(decision.ordinal());
+        lastDecision = decision;
+        return new Admission(decision, arena);
+    }
+
+    /**
+     * Sorts matches by the order they should be started in.
+     * Winners' bracket matches and the grand final go first, since more of the bracket waits on them, then earlier rounds.
+     * @param matches Matches that are ready to be started.
+     * @return Matches in the order they should be admitted.
+     */
+    public List<BracketMatch> order(Collection<BracketMatch> matches) {
+        List<BracketMatch> ordered = new ArrayList<>(matches);
+        ordered.sort(Comparator.comparingInt((BracketMatch match) -> priority(match.stage()))
+                .thenComparingInt(BracketMatch::round)
+                .thenComparingInt(BracketMatch::id));
+        return ordered;
+    }
+
+    /**
+     * Checks the limits that apply to every game.
+     * @return First limit that was hit, or ADMITTED if there is room.
+     */
+    private Decision check() {
+        int reserved = plugin.gameManager().reservedGames();
+
+        if(plugin.gameManager().activeGames().size() + plugin.gameManager().pendingGames() + reserved >= maxGames) {
+            return Decision.CAPACITY;
+        }
+
+        if(averageTickTime > maxTickTime) {
+            return Decision.TICK_TIME;
+        }
+
+        if(freeMemory() < minFreeMemory) {
+            return Decision.MEMORY;
+        }
+
+        // Pooled worlds are already loaded, so only count worlds being created when there are none left.
+        if(plugin.gameManager().worldPool().readyWorlds() <= reserved && plugin.gameManager().pendingGames() + reserved >= maxPendingWorlds) {
+            return Decision.PENDING_WORLDS;
+        }
+
+        return Decision.ADMITTED;
+    }
+
+    /**
+     * Picks the least busy arena for a kit that still has room for another game.
+     * @param kit Kit the game will use.
+     * @return Arena to use, or null if none have room.
+     */
+    private Arena arena(Kit kit) {
+        List<Arena> arenas = new ArrayList<>(plugin.arenaManager().getArenas(kit));
+        Collections.shuffle(arenas);
+
+        Map<Arena, Integer> games = new HashMap<>();
+        for(Game game : plugin.gameManager().activeGames()) {
+            games.merge(game.arena(), 1, Integer::sum);
+        }
+
+        // Games that were admitted but don't exist yet count towards their arena too.
+        Map<Arena, Integer> starting = plugin.gameManager().startingArenas();
+        starting.forEach((arena, count) -> games.merge(arena, count, Integer::sum));
+
+        ArenaGrid arenaGrid = plugin.gameManager().arenaGrid();
+        boolean gridFull = false;
+        if(arenaGrid != null) {
+            int gridStarting = 0;
+            for(Map.Entry<Arena, Integer> entry : starting.entrySet()) {
+                if(arenaGrid.supports(entry.getKey(), kit)) {
+                    gridStarting += entry.getValue();
+                }
+            }
+
+            gridFull = !arenaGrid.hasRoom(gridStarting);
+        }
+
+        Arena best = null;
+        for(Arena arena : arenas) {
+            int count = games.getOrDefault(arena, 0);
+
+            if(maxGamesPerArena > 0 && count >= maxGamesPerArena) {
+                continue;
+            }
+
+            // Arenas hosted in the grid need a cell, and the grid only grows up to its limit.
+            if(gridFull && arenaGrid.supports(arena, kit)) {
+                continue;
+            }
+
+            if(best == null || count < games.getOrDefault(best, 0)) {
+                best = arena;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Records the time since the last tick.
+     */
+    private void tick() {
+        long now = System.nanoTime();
+
+        if(lastTick != 0) {
+            tickTimes[tickIndex] = now - lastTick;
+            tickIndex = (tickIndex + 1) % TICK_SAMPLES;
+            tickCount = Math.min(TICK_SAMPLES, tickCount + 1);
+
+            long total = 0;
+            for(int i = 0; i < tickCount; i++) {
+                total += tickTimes[i];
+            }
+            averageTickTime = total / (double) tickCount / 1_000_000;
+        }
+
+        lastTick = now;
+    }
+
+    private static int priority(BracketMatch.Stage stage) {
+        return switch (stage) {
+            case WINNERS, GRAND_FINAL -> 0;
+            case LOSERS, THIRD_PLACE -> 1;
+        };
+    }
+
+    /**
+     * Get the fraction of the maximum heap that is free.
+     * @return Free memory, from 0 to 1.
+     */
+    public double freeMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        return (runtime.maxMemory() - used) / (double) runtime.maxMemory();
+    }
+
+    /**
+     * Get the average time between ticks over the last 5 seconds, in milliseconds.
+     * A server keeping up runs at 50.
+     * @return Average tick time.
+     */
+    public double averageTickTime() {
+        return averageTickTime;
+    }
+
+    /**
+     * Get the ticks per second, based on the average tick time.
+     * @return Ticks per second, up to 20.
+     */
+    public double tps() {
+        return Math.min(20, 1000 / averageTickTime);
+    }
+
+    /**
+     * Get the number of times a decision was made.
+     * @param decision Decision to count.
+     * @return Number of times it was made.
+     */
+    public long decisions(Decision decision) {
+        return decisions.get(decision.ordinal());
+    }
+
+    /**
+     * Get the most recent decision.
+     * @return Last decision.
+     */
+    public Decision lastDecision() {
+        return lastDecision;
+    }
+
+    /**
+     * Get the most games that can run at once.
+     * @return Maximum games.
+     */
+    public int maxGames() {
+        return maxGames;
+    }
+
+    /**
+     * Get the most game worlds that can be created at once.
+     * @return Maximum pending worlds.
+     */
+    public int maxPendingWorlds() {
+        return maxPendingWorlds;
+    }
+
+    /**
+     * Get the tick time over which no new games are started.
+     * @return Maximum tick time, in milliseconds.
+     */
+    public double maxTickTime() {
+        return maxTickTime;
+    }
+
+    /**
+     * Get the fraction of the heap that has to be free to start a game.
+     * @return Minimum free memory, from 0 to 1.
+     */
+    public double minFreeMemory() {
+        return minFreeMemory;
+    }
+
+    /**
+     * The result of asking to start a game.
+     * @param decision Whether the game was admitted, or why it has to wait.
+     * @param arena Arena to play the game in, or null if it wasn't admitted.
+     */
+    public record Admission(Decision decision, Arena arena) {
+
+        /**
+         * Get if the game can be started now.
+         * @return Whether the game was admitted.
+         */
+        public boolean admitted() {
+            return decision == Decision.ADMITTED;
+        }
+    }
+
+    /**
+     * Reasons a game can be admitted or made to wait.
+     */
+    public enum Decision {
+        ADMITTED("Admitted"),
+        CAPACITY("Too many games"),
+        TICK_TIME("Server is lagging"),
+        MEMORY("Low on memory"),
+        PENDING_WORLDS("Too many worlds loading"),
+        ARENA_CAPACITY("No arena free");
+
+        private final String displayName;
+
+        Decision(String displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * Get the name of the decision, for displaying.
+         * @return Display name.
+         */
+        public String displayName() {
+            return displayName;
+        }
+    }
+}
\ No newline at end of file
@@ -24,7 +24,6 @@
  */
 package gg.airplaines.tournaments.game;
 
-import at.stefangeyer.challonge.model.Match;
 import com.cryptomorin.xseries.XMaterial;
 import com.cryptomorin.xseries.XSound;
 import gg.airplaines.tournaments.TournamentsPlugin;
@@ -32,7 +31,9 @@ import gg.airplaines.tournaments.game.arena.Arena;
 import gg.airplaines.tournaments.game.kit.Kit;
 import gg.airplaines.tournaments.game.team.Team;
 import gg.airplaines.tournaments.game.team.TeamManager;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketMatch;
 import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+import gg.airplaines.tournaments.game.world.GridCell;
 import gg.airplaines.tournaments.utils.GameUtils;
 import gg.airplaines.tournaments.utils.Timer;
 import gg.airplaines.tournaments.utils.chat.ChatUtils;
@@ -43,6 +44,7 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.util.Vector;
 
 import java.util.*;
 
@@ -62,17 +64,37 @@ public class Game {
 
     private GameState gameState;
     private final Collection<Player> spectators = new HashSet<>();
-    private final Match match;
+    private final BracketMatch match;
     private int round = 0;
     private int pointsNeeded;
     private final Map<Block, Material> blocks = new HashMap<>();
+    private final GridCell cell;
+    private final Vector offset;
 
-    public Game(final TournamentsPlugin plugin, final Kit kit, final Arena arena, final World world, final UUID uuid, final Match match) {
+    public Game(final TournamentsPlugin plugin, final Kit kit, final Arena arena, final World world, final UUID uuid, final BracketMatch match) {
+        this(plugin, kit, arena, world, uuid, match, null, new Vector());
+    }
+
+    /**
+     * Creates a game in a cell of the arena grid.
+     * The arena is pasted into the cell at an offset from its original coordinates.
+     * @param plugin Instance of the plugin.
+     * @param kit Kit the game uses.
+     * @param arena Arena the game is played in.
+     * @param world Grid world.
+     * @param uuid UUID of the game.
+     * @param match Bracket match the game is for.
+     * @param cell Grid cell the game is played in.
+     * @param offset Offset of the pasted arena.
+     */
+    public Game(final TournamentsPlugin plugin, final Kit kit, final Arena arena, final World world, final UUID uuid, final BracketMatch match, final GridCell cell, final Vector offset) {
         this.plugin = plugin;
         this.kit = kit;
         this.arena = arena;
         this.world = world;
         this.uuid = uuid;
+        this.cell = cell;
+        this.offset = offset;
 
         this.timer = new Timer(plugin);
         this.teamManager = new TeamManager(plugin);
@@ -83,9 +105,9 @@ public class Game {
 
         // Deletes setup signs
         plugin.getServer().getScheduler().runTask(plugin, () -> {
-            world.getBlockAt(arena.spectatorSpawn(world)).setType(Material.AIR);
-            world.getBlockAt(arena.tournamentSpawn(world)).setType(Material.AIR);
-            arena.spawns(world).forEach(location -> world.getBlockAt(location).setType(Material.AIR));
+            world.getBlockAt(spectatorSpawn()).setType(Material.AIR);
+            world.getBlockAt(tournamentSpawn()).setType(Material.AIR);
+            spawns().forEach(location -> world.getBlockAt(location).setType(Material.AIR));
         });
     }
 
@@ -133,7 +155,7 @@ public class Game {
         teamManager.reset();
 
         // Remove old entities at the start of each round.
-        for(Entity entity : world.getEntities()) {
+        for(Entity entity : entities()) {
             if(entity instanceof Player) {
                 continue;
             }
@@ -143,13 +165,14 @@ public class Game {
 
         for(Player player : players()) {
             spectators.remove(player);
+            plugin.gameManager().unindexSpectator(player, this);
             player.spigot().setCollidesWithEntities(true);
             // TODO: Clear arrows from body. player.setArrowsInBody(0);
         }
 
         // Spawn teams.
         int spawnCount = 0;
-        List<Location> spawns = arena.spawns(world);
+        List<Location> spawns = spawns();
 
 
         for(Team team : this.teamManager.teams()) {
@@ -234,7 +257,7 @@ public class Game {
 
         // Spawn teams.
         int spawnCount = 0;
-        List<Location> spawns = arena.spawns(world);
+        List<Location> spawns = spawns();
 
 
         for(Team team : this.teamManager.teams()) {
@@ -307,7 +330,7 @@ public class Game {
             else {
 
                 // Show hidden players
-                for(Player player : world.getPlayers()) {
+                for(Player player : worldPlayers()) {
                     player.spigot().getHiddenPlayers().forEach(player::showPlayer);
                 }
 
@@ -324,7 +347,7 @@ public class Game {
                 plugin.duelEventManager().activeEvent().broadcast("&b&lTournament &8» &f" + winner.eventTeam().name() + " &bhas defeated &f" + gameLoser.eventTeam().name() + " &7(&f" + winner.score() + " &7-&f " + gameLoser.score() + "&7)&b.");
 
                 // Fixes weird teleport issue with horses at the end of the game.
-                for(Entity entity : world.getEntities()) {
+                for(Entity entity : entities()) {
                     if(entity instanceof Player) {
                         continue;
                     }
@@ -392,7 +415,7 @@ public class Game {
         Bukkit.getScheduler().scheduleSyncDelayedTask(plugin, () -> {
 
             // Show hidden players
-            for(Player player : world.getPlayers()) {
+            for(Player player : worldPlayers()) {
                 player.spigot().getHiddenPlayers().forEach(player::showPlayer);
             }
 
@@ -409,7 +432,7 @@ public class Game {
             plugin.duelEventManager().activeEvent().broadcast("&b&lTournament &8» &f" + winner.eventTeam().name() + " &bhas defeated &f" + loser.eventTeam().name() + " &7(&f" + winner.score() + " &7-&f " + loser.score() + "&7)&b.");
 
             // Fixes weird teleport issue with horses at the end of the game.
-            for(Entity entity : world.getEntities()) {
+            for(Entity entity : entities()) {
                 if(entity instanceof Player) {
                     continue;
                 }
@@ -453,6 +476,7 @@ public class Game {
         List<Player> members = new ArrayList<>();
         members.add(player);
         teamManager.createTeam(members);
+        plugin.gameManager().indexPlayer(player, this);
     }
 
     /**
@@ -461,10 +485,12 @@ public class Game {
      */
     public void addPlayers(List<Player> players) {
         teamManager.createTeam(players);
+        players.forEach(player -> plugin.gameManager().indexPlayer(player, this));
     }
 
     public void addPlayers(EventTeam team) {
-        teamManager.createTeam(team);
+        Team gameTeam = teamManager.createTeam(team);
+        gameTeam.players().forEach(player -> plugin.gameManager().indexPlayer(player, this));
     }
 
     /**
@@ -481,10 +507,11 @@ public class Game {
      */
     public void addSpectator(Player spectator) {
         spectators.add(spectator);
+        plugin.gameManager().indexSpectator(spectator, this);
 
         // Doesn't teleport player if they were in the game before.
         if(teamManager.team(spectator) == null) {
-            spectator.teleport(arena.tournamentSpawn(this.world));
+            spectator.teleport(tournamentSpawn());
         }
 
         spectator.getInventory().clear();
@@ -501,7 +528,7 @@ public class Game {
         spectator.spigot().setCollidesWithEntities(false);
 
         Bukkit.getScheduler().runTaskLater(plugin, () -> {
-            for(Player pl : world.getPlayers()) {
+            for(Player pl : worldPlayers()) {
                 pl.hidePlayer(spectator);
 
                 if(spectators.contains(pl)) {
@@ -529,7 +556,14 @@ public class Game {
      * @param message Message to broadcast.
      */
     public void broadcast(String message) {
-        ChatUtils.broadcast(this.world, message);
+        if(cell == null) {
+            ChatUtils.broadcast(this.world, message);
+            return;
+        }
+
+        for(Player player : worldPlayers()) {
+            ChatUtils.chat(player, message);
+        }
     }
 
     /**
@@ -702,6 +736,7 @@ public class Game {
         }
 
         teamManager.team(player).removePlayer(player);
+        plugin.gameManager().unindexPlayer(player, this);
 
         for(Team team : teamManager.teams()) {
             if(team.alivePlayers().size() == 0) {
@@ -722,8 +757,9 @@ public class Game {
      */
     public void removeSpectator(Player player) {
         spectators.remove(player);
+        plugin.gameManager().unindexSpectator(player, this);
 
-        for(Player pl : world.getPlayers()) {
+        for(Player pl : worldPlayers()) {
             pl.showPlayer(player);
         }
 
@@ -738,6 +774,67 @@ public class Game {
         blocks.clear();
     }
 
+    /**
+     * Get the grid cell the game is being played in.
+     * Null if the game has its own world.
+     * @return Grid cell.
+     */
+    public GridCell cell() {
+        return cell;
+    }
+
+    /**
+     * Get all entities in the area of the game.
+     * @return Entities in the game.
+     */
+    public Collection<Entity> entities() {
+        if(cell == null) {
+            return world.getEntities();
+        }
+
+        List<Entity> entities = new ArrayList<>();
+        for(Entity entity : world.getEntities()) {
+            if(cell.contains(entity.getLocation())) {
+                entities.add(entity);
+            }
+        }
+
+        return entities;
+    }
+
+    /**
+     * Get the offset of the arena from its original coordinates.
+     * Zero unless the game is played in a grid cell.
+     * @return Arena offset.
+     */
+    public Vector offset() {
+        return offset;
+    }
+
+    /**
+     * Get the player spawns of the game's arena.
+     * @return List of player spawns.
+     */
+    public List<Location> spawns() {
+        return arena.spawns(world, offset);
+    }
+
+    /**
+     * Get the spectator spawn of the game's arena.
+     * @return Spectator spawn location.
+     */
+    public Location spectatorSpawn() {
+        return arena.spectatorSpawn(world, offset);
+    }
+
+    /**
+     * Get the tournament spawn of the game's arena.
+     * @return Tournament spawn location.
+     */
+    public Location tournamentSpawn() {
+        return arena.tournamentSpawn(world, offset);
+    }
+
     /**
      * Get the world the game is being played in.
      * @return Game world.
@@ -745,4 +842,23 @@ public class Game {
     public World world() {
         return world;
     }
+
+    /**
+     * Get all players in the area of the game, whether they are part of it or not.
+     * @return Players in the game's area.
+     */
+    public Collection<Player> worldPlayers() {
+        if(cell == null) {
+            return world.getPlayers();
+        }
+
+        List<Player> players = new ArrayList<>();
+        for(Player player : world.getPlayers()) {
+            if(cell.contains(player.getLocation())) {
+                players.add(player);
+            }
+        }
+
+        return players;
+    }
 }
\ No newline at end of file
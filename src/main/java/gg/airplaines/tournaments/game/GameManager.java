@@ -1,22 +1,55 @@
 package gg.airplaines.tournaments.game;
 
-import at.stefangeyer.challonge.model.Match;
 import gg.airplaines.tournaments.TournamentsPlugin;
 import gg.airplaines.tournaments.game.arena.Arena;
 import gg.airplaines.tournaments.game.kit.Kit;
-import gg.airplaines.tournaments.utils.FileUtils;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketMatch;
+import gg.airplaines.tournaments.game.world.ArenaGrid;
+import gg.airplaines.tournaments.game.world.ArenaWorldPool;
+import gg.airplaines.tournaments.game.world.GameWorldProfile;
+import gg.airplaines.tournaments.game.world.HostingMode;
+import gg.airplaines.tournaments.game.world.WorldDeletionService;
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.World;
-import org.bukkit.WorldCreator;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 
 import java.io.File;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GameManager {
     private final TournamentsPlugin plugin;
-    private final Collection<Game> activeGames = new HashSet<>();
+    private final Collection<Game> activeGames = ConcurrentHashMap.newKeySet();
+
+    // Lookup indexes, keyed by player uuid, so listeners can find a game without scanning every game.
+    private final Map<UUID, Game> playerIndex = new ConcurrentHashMap<>();
+    private final Map<UUID, Game> spectatorIndex = new ConcurrentHashMap<>();
+
+    // Games keyed by the uid of the world they are played in.
+    private final Map<UUID, Game> worldIndex = new ConcurrentHashMap<>();
+
+    private final ArenaWorldPool worldPool;
+    private final WorldDeletionService worldDeletion;
+    private final GameWorldProfile worldProfile;
+    private final ArenaGrid arenaGrid;
+    private final AdmissionController admissionController;
+    private final AtomicInteger pendingGames = new AtomicInteger();
+
+    // Games that were admitted but haven't started being created, and the arenas of every admitted game that doesn't exist yet.
+    private final AtomicInteger reservedGames = new AtomicInteger();
+    private final Map<Arena, Integer> startingArenas = new ConcurrentHashMap<>();
+
+    /**
+     * How long a copied world may take to load, in seconds.
+     */
+    private static final long WORLD_LOAD_TIMEOUT = 30;
+    private final Executor mainThread;
 
     /**
      * Creates the Game Manager.
@@ -24,6 +57,22 @@ public class GameManager {
      */
     public GameManager(final TournamentsPlugin plugin) {
         this.plugin = plugin;
+        this.mainThread = task -> plugin.getServer().getScheduler().runTask(plugin, task);
+        this.worldDeletion = new WorldDeletionService(plugin);
+        this.worldProfile = new GameWorldProfile(plugin);
+        this.worldPool = new ArenaWorldPool(plugin);
+
+        HostingMode hostingMode = HostingMode.WORLDS;
+        String mode = plugin.settingsManager().getConfig().getString("arena-hosting", "WORLDS");
+        try {
+            hostingMode = HostingMode.valueOf(mode.toUpperCase());
+        }
+        catch (IllegalArgumentException exception) {
+            plugin.getLogger().warning("Unknown arena-hosting mode " + mode + ", using WORLDS.");
+        }
+
+        this.arenaGrid = hostingMode == HostingMode.GRID ? new ArenaGrid(plugin) : null;
+        this.admissionController = new AdmissionController(plugin);
     }
 
     /**
@@ -42,57 +91,288 @@ public class GameManager {
         activeGames.add(game);
     }
 
-    public CompletableFuture<Game> createGame(Arena arena, Kit kit, Match match) {
-        UUID gameUUID = UUID.randomUUID();
+    /**
+     * Creates a game for a match, releasing the room that was reserved for it when it was admitted.
+     * @param arena Arena to play in.
+     * @param kit Kit to use.
+     * @param match Match the game is for.
+     * @return Future completed with the game, once it exists.
+     */
+    public CompletableFuture<Game> createGame(Arena arena, Kit kit, BracketMatch match) {
+        // Counted as pending from here on.
+        reservedGames.updateAndGet(count -> Math.max(0, count - 1));
 
-        // Makes a copy of the arena with the generated uuid.
-        CompletableFuture<File> arenaCopy = arena.arenaFile().createCopy(gameUUID.toString());
+        CompletableFuture<Game> gameCreation;
+        try {
+            gameCreation = instantiate(arena, kit, match);
+        }
+        catch (RuntimeException exception) {
+            gameCreation = CompletableFuture.failedFuture(exception);
+        }
 
-        // Creates the game.
-        CompletableFuture<Game> gameCreation = CompletableFuture.supplyAsync(() -> {
-            plugin.getServer().getScheduler().runTask(plugin, () -> {
-                WorldCreator worldCreator = new WorldCreator(gameUUID.toString());
-                Bukkit.createWorld(worldCreator);
-            });
+        // The game counts towards its arena until it exists, or failed to be created.
+        return gameCreation.whenComplete((game, exception) -> releaseArena(arena));
+    }
 
-            // Wait for the world to be generated.
-            boolean loaded = false;
-            World world = null;
-            while(!loaded) {
-                try {
-                    Thread.sleep(60);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
+    /**
+     * Creates a game in the grid, a pooled world or a new copy of the arena.
+     * @param arena Arena to play in.
+     * @param kit Kit to use.
+     * @param match Match the game is for.
+     * @return Future completed with the game.
+     */
+    private CompletableFuture<Game> instantiate(Arena arena, Kit kit, BracketMatch match) {
+        // Pastes the arena into the grid world if it fits.
+        if(arenaGrid != null && arenaGrid.supports(arena, kit)) {
+            pendingGames.incrementAndGet();
+            return arenaGrid.host(arena, kit, match).whenComplete((game, exception) -> {
+                pendingGames.decrementAndGet();
+
+                if(exception != null) {
+                    plugin.getLogger().severe("Could not create a grid game in " + arena.id() + ": " + exception);
                 }
+            });
+        }
 
-                for(World w : Bukkit.getWorlds()) {
-                    if(w.getName().equals(gameUUID.toString())) {
-                        loaded = true;
-                        world = w;
-                        break;
+        // Uses a world that was prepared ahead of time if there is one.
+        World pooledWorld = worldPool.take(arena, kit);
+        if(pooledWorld != null) {
+            Game game = new Game(plugin, kit, arena, pooledWorld, UUID.fromString(pooledWorld.getName()), match);
+            worldIndex.put(pooledWorld.getUID(), game);
+            return CompletableFuture.completedFuture(game);
+        }
+
+        String name = UUID.randomUUID().toString();
+        pendingGames.incrementAndGet();
+
+        // Makes a copy of the arena with the generated uuid, loads it, then creates the game on the main thread.
+        return arena.arenaFile().instantiate(name, arena.writableRegions(), kit.build())
+                .thenCompose(file -> loadWorld(name))
+                .thenApplyAsync(world -> {
+                    Game game = new Game(plugin, kit, arena, world, UUID.fromString(name), match);
+                    worldIndex.put(world.getUID(), game);
+                    return game;
+                }, mainThread)
+                .whenComplete((game, exception) -> {
+                    pendingGames.decrementAndGet();
+
+                    if(exception != null) {
+                        plugin.getLogger().severe("Could not create a game in " + arena.id() + ": " + exception);
+                        discardWorld(name);
                     }
-                }
+                });
+    }
+
+    /**
+     * Loads a copied arena world.
+     * The world is created on the main thread, and the future is completed directly from that task.
+     * Fails if the world can't be loaded, or takes longer than the world load timeout.
+     * @param name Name of the world folder.
+     * @return Future completed with the loaded world.
+     */
+    public CompletableFuture<World> loadWorld(String name) {
+        CompletableFuture<World> worldLoad = new CompletableFuture<>();
+
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            // The load already timed out, so nobody is waiting for this world anymore.
+            if(worldLoad.isDone()) {
+                return;
+            }
+
+            World world;
+            try {
+                world = Bukkit.createWorld(worldProfile.creator(name));
+            }
+            catch (RuntimeException exception) {
+                worldLoad.completeExceptionally(exception);
+                return;
             }
 
-            return new Game(plugin, kit, arena, world, gameUUID, match);
+            if(world == null) {
+                worldLoad.completeExceptionally(new IllegalStateException("World " + name + " could not be loaded."));
+                return;
+            }
+
+            worldProfile.apply(world);
+            worldLoad.complete(world);
         });
 
-        return arenaCopy.thenCompose(file -> gameCreation);
+        return worldLoad.orTimeout(WORLD_LOAD_TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Unloads and deletes a world that will never be used.
+     * Used to clean up after a game fails to be created.
+     * @param name Name of the world.
+     */
+    public void discardWorld(String name) {
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            World world = Bukkit.getWorld(name);
+            if(world != null) {
+                Bukkit.unloadWorld(world, false);
+            }
+
+            worldDeletion.delete(new File(Bukkit.getWorldContainer(), name));
+        });
     }
 
     /**
      * Deletes a game that is no longer needed.
-     * This also deletes its temporary world folder.
+     * The world is reset and kept for the next game on the same arena if possible,
+     * otherwise its temporary world folder is deleted.
      * @param game Game to delete.
      */
     public void deleteGame(Game game) {
         activeGames.remove(game);
+        playerIndex.values().removeIf(indexed -> indexed == game);
+        spectatorIndex.values().removeIf(indexed -> indexed == game);
+        worldIndex.remove(game.world().getUID(), game);
+
+        // Grid games share their world, so only their cell is cleaned up.
+        if(game.cell() != null) {
+            arenaGrid.release(game);
+            return;
+        }
+
+        if(recycleWorld(game)) {
+            return;
+        }
+
         File worldFolder = game.world().getWorldFolder();
         Bukkit.unloadWorld(game.world(), false);
+        worldDeletion.delete(worldFolder);
+    }
 
-        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
-            FileUtils.deleteDirectory(worldFolder);
-        });
+    /**
+     * Resets the world of a finished game and returns it to the world pool.
+     * Only the blocks the game tracked can be restored, so worlds of kits that allow building are never recycled.
+     * @param game Game that finished.
+     * @return Whether the world was recycled.
+     */
+    private boolean recycleWorld(Game game) {
+        if(game.kit().build()) {
+            return false;
+        }
+
+        World world = game.world();
+
+        // Players still in the world would end up in the next game.
+        if(world.getPlayers().size() > 0) {
+            return false;
+        }
+
+        game.resetArena();
+
+        for(Entity entity : world.getEntities()) {
+            entity.remove();
+        }
+
+        world.setStorm(false);
+        world.setThundering(false);
+
+        return worldPool.release(game.arena(), game.kit(), world);
+    }
+
+    /**
+     * Gets arena worlds ready ahead of time for games in an arena.
+     * @param arena Arena that will be played in.
+     * @param kit Kit that will be used.
+     */
+    public void prepare(Arena arena, Kit kit) {
+        if(arenaGrid != null && arenaGrid.supports(arena, kit)) {
+            arenaGrid.prepare(arena);
+            return;
+        }
+
+        worldPool.prepare(arena, kit);
+    }
+
+    /**
+     * Reserves room for a game that was admitted, until it is created.
+     * Keeps games admitted before the last ones were created from overshooting the admission limits.
+     * @param arena Arena the game was admitted to.
+     */
+    public void reserve(Arena arena) {
+        reservedGames.incrementAndGet();
+        startingArenas.merge(arena, 1, Integer::sum);
+    }
+
+    /**
+     * Releases the room reserved for a game that won't be created after all.
+     * @param arena Arena the game was admitted to.
+     */
+    public void release(Arena arena) {
+        reservedGames.updateAndGet(count -> Math.max(0, count - 1));
+        releaseArena(arena);
+    }
+
+    private void releaseArena(Arena arena) {
+        startingArenas.computeIfPresent(arena, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Get the number of games that were admitted, but haven't started being created.
+     * @return Reserved games.
+     */
+    public int reservedGames() {
+        return reservedGames.get();
+    }
+
+    /**
+     * Get the arenas of games that were admitted but don't exist yet, with how many games each is waiting on.
+     * @return Number of starting games, by arena.
+     */
+    public Map<Arena, Integer> startingArenas() {
+        return Collections.unmodifiableMap(startingArenas);
+    }
+
+    /**
+     * Get the number of games currently waiting on a world copy.
+     * @return Games being created.
+     */
+    public int pendingGames() {
+        return pendingGames.get();
+    }
+
+    /**
+     * Get the pool of pre-loaded arena worlds.
+     * @return Arena world pool.
+     */
+    public ArenaWorldPool worldPool() {
+        return worldPool;
+    }
+
+    /**
+     * Get the grid world games are hosted in.
+     * Null unless the grid hosting mode is used.
+     * @return Arena grid.
+     */
+    public ArenaGrid arenaGrid() {
+        return arenaGrid;
+    }
+
+    /**
+     * Get the controller that decides when new games can be started.
+     * @return Admission controller.
+     */
+    public AdmissionController admissionController() {
+        return admissionController;
+    }
+
+    /**
+     * Get the settings game worlds are loaded with.
+     * @return Game world profile.
+     */
+    public GameWorldProfile worldProfile() {
+        return worldProfile;
+    }
+
+    /**
+     * Get the service that deletes unused game worlds.
+     * @return World deletion service.
+     */
+    public WorldDeletionService worldDeletion() {
+        return worldDeletion;
     }
 
     /**
@@ -102,21 +382,52 @@ public class GameManager {
      * @return Game they are in.
      */
     public Game game(Player player) {
-        // Makes a copy of the active games to prevent ConcurrentModificationException.
-        List<Game> games = new ArrayList<>(activeGames);
+        Game game = playerIndex.get(player.getUniqueId());
 
-        // Loop through each game looking for the player.
-        for(Game game : games) {
-            if(game.players().contains(player)) {
-                return game;
-            }
-
-            if(game.spectators().contains(player)) {
-                return game;
-            }
+        if(game != null) {
+            return game;
         }
 
-        return null;
+        return spectatorIndex.get(player.getUniqueId());
+    }
+
+    /**
+     * Marks a player as playing in a game.
+     * Called by the game whenever a player is added to one of its teams.
+     * @param player Player being added.
+     * @param game Game they are playing in.
+     */
+    public void indexPlayer(Player player, Game game) {
+        playerIndex.put(player.getUniqueId(), game);
+    }
+
+    /**
+     * Marks a player as spectating a game.
+     * @param player Player spectating.
+     * @param game Game they are spectating.
+     */
+    public void indexSpectator(Player player, Game game) {
+        spectatorIndex.put(player.getUniqueId(), game);
+    }
+
+    /**
+     * Removes a player's playing entry for a game.
+     * Does nothing if they are indexed under a different game.
+     * @param player Player being removed.
+     * @param game Game they are being removed from.
+     */
+    public void unindexPlayer(Player player, Game game) {
+        playerIndex.remove(player.getUniqueId(), game);
+    }
+
+    /**
+     * Removes a player's spectating entry for a game.
+     * Does nothing if they are indexed under a different game.
+     * @param player Spectator being removed.
+     * @param game Game they were spectating.
+     */
+    public void unindexSpectator(Player player, Game game) {
+        spectatorIndex.remove(player.getUniqueId(), game);
     }
 
     /**
@@ -126,15 +437,32 @@ public class GameManager {
      * @return Game using that world.
      */
     public Game game(World world) {
-        // Makes a copy of the active games to prevent ConcurrentModificationException.
-        List<Game> games = new ArrayList<>(activeGames);
+        return worldIndex.get(world.getUID());
+    }
 
-        for(Game game : games) {
-            if(game.world().equals(world)) {
-                return game;
-            }
+    /**
+     * Get the game being played at a location.
+     * Works for both games with their own world and games in the arena grid.
+     * Returns null if there isn't one.
+     * @param location Location to get game of.
+     * @return Game at that location.
+     */
+    public Game game(Location location) {
+        Game game = worldIndex.get(location.getWorld().getUID());
+
+        if(game != null || arenaGrid == null) {
+            return game;
         }
 
-        return null;
+        return arenaGrid.game(location);
+    }
+
+    /**
+     * Check if a world is being used by a game.
+     * @param world World to check.
+     * @return Whether a game is played in that world.
+     */
+    public boolean isGameWorld(World world) {
+        return worldIndex.containsKey(world.getUID()) || (arenaGrid != null && arenaGrid.isGridWorld(world));
     }
 }
\ No newline at end of file
@@ -33,11 +33,10 @@ import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.util.Vector;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 /**
  * Represents an area in which a game is played.
@@ -53,6 +52,9 @@ public class Arena {
     private final File configFile;
     private final List<Location> spawns = new ArrayList<>();
     private final Location tournamentSpawn;
+    private final ArenaBounds bounds;
+    private final ArenaBounds.Source boundsSource;
+    private final Set<String> writableRegions = new HashSet<>();
 
     // Raw Location Data
     private final List<String> spawnsRaw;
@@ -110,6 +112,21 @@ public class Arena {
         for(final String spawn : spawnsRaw) {
             spawns.add(LocationUtils.fromString(spawn));
         }
+
+        // Arenas saved before bounds were recorded don't have them.
+        bounds = ArenaBounds.fromString(config.getString("bounds"));
+
+        // Bounds saved without a source can't be trusted to cover the whole map.
+        ArenaBounds.Source source = ArenaBounds.Source.GUESSED;
+        try {
+            source = ArenaBounds.Source.valueOf(config.getString("bounds-source", "GUESSED").toUpperCase());
+        }
+        catch (IllegalArgumentException exception) {
+            plugin.getLogger().warning("Unknown bounds-source in arena " + id + ", treating its bounds as guessed.");
+        }
+        boundsSource = source;
+
+        loadWritableRegions();
     }
 
     /**
@@ -120,6 +137,24 @@ public class Arena {
         return arenaFile;
     }
 
+    /**
+     * Gets the area of the arena games can be played in.
+     * Null if the arena was saved before bounds were recorded.
+     * @return Arena bounds.
+     */
+    public ArenaBounds bounds() {
+        return bounds;
+    }
+
+    /**
+     * Gets where the bounds of the arena came from.
+     * Only bounds from a world border are known to cover the whole map.
+     * @return Source of the bounds.
+     */
+    public ArenaBounds.Source boundsSource() {
+        return boundsSource;
+    }
+
     /**
      * Gets the builders of the arena.
      * @return Arena builders.
@@ -175,6 +210,19 @@ public class Arena {
         return worldSpawns;
     }
 
+    /**
+     * Get the player spawns of the arena, moved by an offset.
+     * Used when the arena is pasted somewhere else than its original coordinates.
+     * @param world World to get the spawns of.
+     * @param offset Offset of the arena.
+     * @return List of player spawns.
+     */
+    public List<Location> spawns(World world, Vector offset) {
+        List<Location> worldSpawns = spawns(world);
+        worldSpawns.forEach(spawn -> spawn.add(offset));
+        return worldSpawns;
+    }
+
     /**
      * Get the spectator area of the arena in a specific world.
      * @param world World to get spectator spawn of.
@@ -184,6 +232,16 @@ public class Arena {
         return LocationUtils.replaceWorld(world, spectatorSpawn);
     }
 
+    /**
+     * Get the spectator area of the arena, moved by an offset.
+     * @param world World to get spectator spawn of.
+     * @param offset Offset of the arena.
+     * @return Spectator spawn location.
+     */
+    public Location spectatorSpawn(World world, Vector offset) {
+        return spectatorSpawn(world).add(offset);
+    }
+
     /**
      * Get the arena's tournament spawn.
      * Returns null if it doesn't have one.
@@ -194,6 +252,25 @@ public class Arena {
         return LocationUtils.replaceWorld(world, tournamentSpawn);
     }
 
+    /**
+     * Get the arena's tournament spawn, moved by an offset.
+     * @param world World to get the tournament spawn of.
+     * @param offset Offset of the arena.
+     * @return The arena's tournament spawn.
+     */
+    public Location tournamentSpawn(World world, Vector offset) {
+        return tournamentSpawn(world).add(offset);
+    }
+
+    /**
+     * Gets the names of the region files a game in this arena may write to.
+     * These cover the arena's bounds, or every spawn plus some padding for arenas saved without bounds.
+     * @return Region file names.
+     */
+    public Set<String> writableRegions() {
+        return writableRegions;
+    }
+
     /**
      * Gets the y-level in which players die.
      * @return Arena void level.
@@ -201,4 +278,26 @@ public class Arena {
     public int voidLevel() {
         return voidLevel;
     }
+
+    /**
+     * Finds the region files that contain the arena's playable area.
+     */
+    private void loadWritableRegions() {
+        if(bounds != null) {
+            writableRegions.addAll(bounds.regionFiles());
+            return;
+        }
+
+        List<Location> points = new ArrayList<>(spawns);
+        points.add(spectatorSpawn);
+        points.add(tournamentSpawn);
+
+        for(Location point : points) {
+            if(point == null) {
+                continue;
+            }
+
+            writableRegions.addAll(ArenaBounds.around(point).regionFiles());
+        }
+    }
 }
\ No newline at end of file
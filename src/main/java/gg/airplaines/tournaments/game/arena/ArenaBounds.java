@@ -0,0 +1,176 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.arena;
+
+import org.bukkit.Location;
+import org.bukkit.WorldBorder;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The area of an arena that can be reached during a game, in block coordinates.
+ * Used to leave out the parts of an arena world that are never played in.
+ * @param minX Lowest x coordinate.
+ * @param minZ Lowest z coordinate.
+ * @param maxX Highest x coordinate.
+ * @param maxZ Highest z coordinate.
+ */
+public record ArenaBounds(int minX, int minZ, int maxX, int maxZ) {
+    /**
+     * How far, in blocks, the playable area is assumed to reach past the arena's spawns.
+     */
+    public static final int PLAYABLE_PADDING = 96;
+
+    /**
+     * Any world border at least this large is treated as not being set.
+     */
+    private static final double MAX_BORDER_SIZE = 10000;
+
+    /**
+     * Get the bounds that surround a single location, with the playable padding around it.
+     * @param location Location to surround.
+     * @return Bounds around the location.
+     */
+    public static ArenaBounds around(Location location) {
+        return new ArenaBounds(location.getBlockX() - PLAYABLE_PADDING, location.getBlockZ() - PLAYABLE_PADDING,
+                location.getBlockX() + PLAYABLE_PADDING, location.getBlockZ() + PLAYABLE_PADDING);
+    }
+
+    /**
+     * Get the area inside a world border.
+     * Returns null if the border was never shrunk from its default size.
+     * @param border World border to get the bounds of.
+     * @return Bounds of the border.
+     */
+    public static ArenaBounds of(WorldBorder border) {
+        double radius = border.getSize() / 2;
+
+        if(radius * 2 >= MAX_BORDER_SIZE) {
+            return null;
+        }
+
+        Location center = border.getCenter();
+        return new ArenaBounds((int) Math.floor(center.getX() - radius), (int) Math.floor(center.getZ() - radius),
+                (int) Math.ceil(center.getX() + radius), (int) Math.ceil(center.getZ() + radius));
+    }
+
+    /**
+     * Get bounds from a formatted string.
+     * Returns null if the string is null or malformed.
+     * @param string Formatted string, in the form "minX,minZ,maxX,maxZ".
+     * @return Bounds inside that string.
+     */
+    public static ArenaBounds fromString(String string) {
+        if(string == null) {
+            return null;
+        }
+
+        String[] args = string.split(",");
+        if(args.length != 4) {
+            return null;
+        }
+
+        try {
+            return new ArenaBounds(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        }
+        catch (NumberFormatException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the smallest bounds that contain both these bounds and another.
+     * @param other Bounds to include. Ignored if null.
+     * @return Combined bounds.
+     */
+    public ArenaBounds union(ArenaBounds other) {
+        if(other == null) {
+            return this;
+        }
+
+        return new ArenaBounds(Math.min(minX, other.minX), Math.min(minZ, other.minZ), Math.max(maxX, other.maxX), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Check if any part of a chunk is inside the bounds.
+     * @param chunkX X coordinate of the chunk.
+     * @param chunkZ Z coordinate of the chunk.
+     * @return Whether the chunk is inside.
+     */
+    public boolean containsChunk(int chunkX, int chunkZ) {
+        return chunkX >= (minX >> 4) && chunkX <= (maxX >> 4) && chunkZ >= (minZ >> 4) && chunkZ <= (maxZ >> 4);
+    }
+
+    /**
+     * Check if any part of a region file is inside the bounds.
+     * @param regionX X coordinate of the region.
+     * @param regionZ Z coordinate of the region.
+     * @return Whether the region is inside.
+     */
+    public boolean containsRegion(int regionX, int regionZ) {
+        return regionX >= (minX >> 9) && regionX <= (maxX >> 9) && regionZ >= (minZ >> 9) && regionZ <= (maxZ >> 9);
+    }
+
+    /**
+     * Get the names of every region file inside the bounds.
+     * @return Region file names.
+     */
+    public Set<String> regionFiles() {
+        Set<String> regionFiles = new HashSet<>();
+
+        for(int x = minX >> 9; x <= maxX >> 9; x++) {
+            for(int z = minZ >> 9; z <= maxZ >> 9; z++) {
+                regionFiles.add("r." + x + "." + z + ".mca");
+            }
+        }
+
+        return regionFiles;
+    }
+
+    /**
+     * Formats the bounds so they can be stored in an arena's configuration file.
+     * @return Formatted bounds.
+     */
+    @Override
+    public String toString() {
+        return minX + "," + minZ + "," + maxX + "," + maxZ;
+    }
+
+    /**
+     * Where an arena's bounds came from.
+     */
+    public enum Source {
+        /**
+         * The world border, which players can't get past.
+         */
+        BORDER,
+
+        /**
+         * The area around the spawns. Parts of the map further out are left out.
+         */
+        GUESSED
+    }
+}
\ No newline at end of file
@@ -27,6 +27,8 @@ package gg.airplaines.tournaments.game.arena;
 import gg.airplaines.tournaments.TournamentsPlugin;
 import gg.airplaines.tournaments.game.arena.builder.ArenaBuilder;
 import gg.airplaines.tournaments.game.arena.file.ArenaFileManager;
+import gg.airplaines.tournaments.game.arena.file.ArenaTemplateCache;
+import gg.airplaines.tournaments.game.arena.file.InstantiationMode;
 import gg.airplaines.tournaments.game.kit.Kit;
 
 import java.io.File;
@@ -37,7 +39,7 @@ import java.util.*;
  */
 public class ArenaManager {
     private final TournamentsPlugin plugin;
-    private final ArenaFileManager arenaFileManager = new ArenaFileManager();
+    private final ArenaFileManager arenaFileManager;
     private final Map<String, Arena> arenas = new HashMap<>();
     private ArenaBuilder arenaBuilder;
 
@@ -47,6 +49,23 @@ public class ArenaManager {
      */
     public ArenaManager(final TournamentsPlugin plugin) {
         this.plugin = plugin;
+
+        InstantiationMode instantiationMode = InstantiationMode.COPY;
+        String mode = plugin.settingsManager().getConfig().getString("arena-instantiation", "COPY");
+        try {
+            instantiationMode = InstantiationMode.valueOf(mode.toUpperCase());
+        }
+        catch (IllegalArgumentException exception) {
+            plugin.getLogger().warning("Unknown arena-instantiation mode " + mode + ", using COPY.");
+        }
+
+        ArenaTemplateCache templateCache = null;
+        if(plugin.settingsManager().getConfig().getBoolean("template-cache.enabled", true)) {
+            long maxBytes = plugin.settingsManager().getConfig().getLong("template-cache.max-megabytes", 256) * 1024 * 1024;
+            templateCache = new ArenaTemplateCache(maxBytes);
+        }
+
+        arenaFileManager = new ArenaFileManager(plugin, instantiationMode, templateCache);
     }
 
     /**
@@ -26,8 +26,11 @@ package gg.airplaines.tournaments.game.arena.builder;
 
 import gg.airplaines.tournaments.TournamentsPlugin;
 import gg.airplaines.tournaments.game.arena.Arena;
+import gg.airplaines.tournaments.game.arena.ArenaBounds;
+import gg.airplaines.tournaments.game.arena.file.ArenaTrimmer;
 import gg.airplaines.tournaments.game.kit.Kit;
 import gg.airplaines.tournaments.utils.FileUtils;
+import gg.airplaines.tournaments.utils.WorldCopier;
 import org.bukkit.*;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
@@ -252,6 +255,24 @@ public class ArenaBuilder {
             configuration.set("tournamentSpawn", tournamentSpawn);
             configuration.set("spawns", spawns);
 
+            // Finds the area games can be played in, while the world is still loaded.
+            ArenaBounds bounds = bounds();
+            ArenaBounds.Source boundsSource = ArenaBounds.of(world.getWorldBorder()) != null ? ArenaBounds.Source.BORDER : ArenaBounds.Source.GUESSED;
+            configuration.set("bounds", bounds.toString());
+            configuration.set("bounds-source", boundsSource.name());
+
+            // Bounds guessed from the spawns could cut off parts of the map, so they are never used to leave anything out.
+            if(boundsSource == ArenaBounds.Source.GUESSED && plugin.settingsManager().getConfig().getString("arena-hosting", "WORLDS").equalsIgnoreCase("GRID")) {
+                plugin.getLogger().warning("Arena " + id + " has no world border, so it won't be hosted in the grid. Set one around the playable area to use the grid.");
+            }
+
+            boolean trimming = plugin.settingsManager().getConfig().getBoolean("arena-trimming.enabled", false);
+            if(trimming && boundsSource == ArenaBounds.Source.GUESSED) {
+                plugin.getLogger().warning("Not trimming arena " + id + ", it has no world border. Set one around the playable area to trim it.");
+                trimming = false;
+            }
+            boolean trimmed = trimming;
+
             // Kits
             {
                 List<String> kitStrings = new ArrayList<>();
@@ -284,8 +305,30 @@ public class ArenaBuilder {
                     FileUtils.deleteDirectory(savedWorldFolder);
                 }
 
-                // Copies the world to the maps folder.
-                FileUtils.copyFileStructure(worldFolder, savedWorldFolder);
+                // Copies the world to the maps folder, leaving out region files outside the arena.
+                Set<String> removedRegions = Collections.synchronizedSet(new TreeSet<>());
+                WorldCopier.CopyResult result = !trimmed ? WorldCopier.copy(worldFolder, savedWorldFolder) : WorldCopier.copy(worldFolder, savedWorldFolder, path -> {
+                    boolean inside = ArenaTrimmer.isInside(path, bounds);
+                    if(!inside) {
+                        removedRegions.add(path.getFileName().toString());
+                    }
+
+                    return inside;
+                });
+                plugin.getLogger().info("Saved arena " + id + " (" + result + ")");
+
+                if(!removedRegions.isEmpty()) {
+                    plugin.getLogger().info("Trimmed " + removedRegions.size() + " region files outside " + bounds + " from arena " + id + ": " + String.join(", ", removedRegions));
+                }
+
+                // Removes the chunks outside the arena from the region files that were kept.
+                if(trimmed && plugin.settingsManager().getConfig().getBoolean("arena-trimming.chunks", false)) {
+                    int removed = ArenaTrimmer.trimChunks(savedWorldFolder, bounds);
+                    plugin.getLogger().info("Trimmed " + removed + " chunks from arena " + id + ".");
+                }
+
+                // Makes sure games don't keep using the old version of the arena.
+                plugin.arenaManager().arenaFileManager().invalidate(worldID);
 
                 // Deletes the previous world.
                 FileUtils.deleteDirectory(worldFolder);
@@ -299,6 +342,35 @@ public class ArenaBuilder {
         }
     }
 
+    /**
+     * Get the area of the world games in the arena can reach.
+     * Uses the world border if it was set, otherwise the area around the spawns.
+     * @return Bounds of the arena.
+     */
+    private ArenaBounds bounds() {
+        ArenaBounds border = ArenaBounds.of(world.getWorldBorder());
+        if(border != null) {
+            return border;
+        }
+
+        List<String> points = new ArrayList<>(spawns);
+        points.add(spectatorSpawn);
+        points.add(tournamentSpawn);
+
+        ArenaBounds bounds = null;
+        for(String point : points) {
+            if(point == null) {
+                continue;
+            }
+
+            String[] args = point.split(",");
+            ArenaBounds pointBounds = ArenaBounds.around(new Location(world, Double.parseDouble(args[1]), Double.parseDouble(args[2]), Double.parseDouble(args[3])));
+            bounds = pointBounds.union(bounds);
+        }
+
+        return bounds;
+    }
+
     private float yawFromBlockFace(BlockFace blockFace) {
         switch (blockFace) {
             case NORTH -> {
@@ -24,26 +24,38 @@
  */
 package gg.airplaines.tournaments.game.arena.file;
 
-import gg.airplaines.tournaments.utils.FileUtils;
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.utils.WorldCopier;
 import org.bukkit.Bukkit;
 
 import java.io.File;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
 
 /**
  * Represents a world not loaded by the server, where an arena is stored.
  */
 public class ArenaFile {
+    private final TournamentsPlugin plugin;
     private final File file;
     private final String id;
+    private final InstantiationMode instantiationMode;
+    private final ArenaTemplateCache templateCache;
 
     /**
      * Creates the arena file.
+     * @param plugin Instance of the plugin.
      * @param file File to create arena file object for.
+     * @param instantiationMode How game worlds are created from the arena world.
+     * @param templateCache Cache to copy the arena world from. Can be null.
      */
-    public ArenaFile(File file) {
+    public ArenaFile(final TournamentsPlugin plugin, File file, InstantiationMode instantiationMode, ArenaTemplateCache templateCache) {
+        this.plugin = plugin;
         this.file = file;
         this.id = file.getName();
+        this.instantiationMode = instantiationMode;
+        this.templateCache = templateCache;
     }
 
     /**
@@ -72,8 +84,61 @@ public class ArenaFile {
         return CompletableFuture.supplyAsync(() -> {
             File serverFolder = Bukkit.getWorlds().get(0).getWorldFolder().getParentFile();
             File worldFolder = new File(serverFolder, name);
-            FileUtils.copyFileStructure(file, worldFolder);
+
+            // Writes the world straight from memory if the arena is cached.
+            ArenaTemplate template = templateCache == null ? null : templateCache.template(this);
+            if(template != null) {
+                WorldCopier.CopyResult result = template.materialize(worldFolder);
+                log("Wrote arena " + id + " to " + name + " from memory", result);
+                return worldFolder;
+            }
+
+            WorldCopier.CopyResult result = WorldCopier.copy(file, worldFolder);
+            log("Copied arena " + id + " to " + name, result);
             return worldFolder;
         });
     }
+
+    /**
+     * Creates a game world from the arena world with a specific name.
+     * Depending on the instantiation mode, region files outside the playable area may be shared with the arena world.
+     * Games that allow building are always copied, since players can change blocks anywhere they can reach,
+     * and a changed chunk in a shared region file would be saved into the arena world.
+     * @param name Name of the game world.
+     * @param writableRegions Names of the region files the game may write to.
+     * @param build Whether the game allows building.
+     * @return new world folder.
+     */
+    public CompletableFuture<File> instantiate(String name, Set<String> writableRegions, boolean build) {
+        if(instantiationMode == InstantiationMode.COPY || build) {
+            return createCopy(name);
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            File serverFolder = Bukkit.getWorlds().get(0).getWorldFolder().getParentFile();
+            File worldFolder = new File(serverFolder, name);
+            WorldCopier.CopyResult result = WorldCopier.link(file, worldFolder, writableRegions);
+            log("Linked arena " + id + " to " + name, result);
+            return worldFolder;
+        });
+    }
+
+    /**
+     * Logs a finished copy. Copies happen for every game, so only slow ones are logged at INFO.
+     * @param message What was copied.
+     * @param result Result of the copy.
+     */
+    private void log(String message, WorldCopier.CopyResult result) {
+        long slowMillis = plugin.settingsManager().getConfig().getLong("arena-copy-log-millis", 500);
+        Level level = result.durationMillis() >= slowMillis ? Level.INFO : Level.FINE;
+        plugin.getLogger().log(level, message + " (" + result + ")");
+    }
+
+    /**
+     * Gets how game worlds are created from this arena.
+     * @return Instantiation mode.
+     */
+    public InstantiationMode instantiationMode() {
+        return instantiationMode;
+    }
 }
\ No newline at end of file
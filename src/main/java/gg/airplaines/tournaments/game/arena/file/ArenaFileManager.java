@@ -24,6 +24,8 @@
  */
 package gg.airplaines.tournaments.game.arena.file;
 
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.world.ArenaGrid;
 import org.bukkit.Bukkit;
 
 import java.io.File;
@@ -32,6 +34,47 @@ import java.io.File;
  * Manages the loading of Arena world files.
  */
 public class ArenaFileManager {
+    private final TournamentsPlugin plugin;
+    private final InstantiationMode instantiationMode;
+    private final ArenaTemplateCache templateCache;
+
+    /**
+     * Creates the arena file manager.
+     * @param plugin Instance of the plugin.
+     * @param instantiationMode How game worlds are created from arena worlds.
+     * @param templateCache Cache of arena worlds held in memory. Can be null.
+     */
+    public ArenaFileManager(final TournamentsPlugin plugin, InstantiationMode instantiationMode, ArenaTemplateCache templateCache) {
+        this.plugin = plugin;
+        this.instantiationMode = instantiationMode;
+        this.templateCache = templateCache;
+    }
+
+    /**
+     * Drops the cached copies of an arena world, held by the template cache and the arena grid.
+     * Must be called whenever the arena world is saved again.
+     * @param name Name of the arena.
+     */
+    public void invalidate(String name) {
+        if(templateCache != null) {
+            templateCache.invalidate(name);
+        }
+
+        // The grid keeps its own copy of the arena's blocks.
+        ArenaGrid arenaGrid = plugin.gameManager().arenaGrid();
+        if(arenaGrid != null) {
+            arenaGrid.invalidate(name);
+        }
+    }
+
+    /**
+     * Gets the cache of arena worlds held in memory.
+     * Null if disabled.
+     * @return Arena template cache.
+     */
+    public ArenaTemplateCache templateCache() {
+        return templateCache;
+    }
 
     /**
      * Loads an Arena World File object.
@@ -54,7 +97,7 @@ public class ArenaFileManager {
         for(File file : files) {
             if(file.getName().equals(name)) {
                 // Creates the ArenaFile if it is found.
-                return new ArenaFile(file);
+                return new ArenaFile(plugin, file, instantiationMode, templateCache);
             }
         }
 
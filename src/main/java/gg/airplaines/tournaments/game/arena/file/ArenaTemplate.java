@@ -0,0 +1,181 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.arena.file;
+
+import gg.airplaines.tournaments.utils.WorldCopier;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An arena world held in memory, so game worlds can be written without reading the arena from disk.
+ */
+public class ArenaTemplate {
+    private final List<String> directories;
+    private final List<TemplateFile> files;
+    private final long bytes;
+
+    private ArenaTemplate(List<String> directories, List<TemplateFile> files, long bytes) {
+        this.directories = directories;
+        this.files = files;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Reads an arena world into memory.
+     * Returns null if the world is larger than the given limit, without reading any of it.
+     * @param worldFolder Arena world folder.
+     * @param maxBytes Largest template that should be loaded.
+     * @return Loaded template, or null if it is too large.
+     */
+    public static ArenaTemplate load(File worldFolder, long maxBytes) {
+        if(size(worldFolder) > maxBytes) {
+            return null;
+        }
+
+        Path source = worldFolder.toPath();
+        List<String> directories = new ArrayList<>();
+        List<TemplateFile> files = new ArrayList<>();
+        long[] bytes = {0};
+
+        try {
+            Files.walkFileTree(source, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                    if(WorldCopier.isIgnored(dir.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+
+                    directories.add(source.relativize(dir).toString());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    if(WorldCopier.isIgnored(file.getFileName().toString())) {
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    byte[] data = Files.readAllBytes(file);
+                    bytes[0] += data.length;
+                    files.add(new TemplateFile(source.relativize(file).toString(), data));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        return new ArenaTemplate(Collections.unmodifiableList(directories), Collections.unmodifiableList(files), bytes[0]);
+    }
+
+    /**
+     * Adds up the size of the files that would be loaded from an arena world, without reading them.
+     * @param worldFolder Arena world folder.
+     * @return Size of the world in bytes.
+     */
+    public static long size(File worldFolder) {
+        long[] bytes = {0};
+
+        try {
+            Files.walkFileTree(worldFolder.toPath(), new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                    return WorldCopier.isIgnored(dir.getFileName().toString()) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if(!WorldCopier.isIgnored(file.getFileName().toString())) {
+                        bytes[0] += attributes.size();
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        return bytes[0];
+    }
+
+    /**
+     * Get the total size of the files in the template.
+     * @return Template size in bytes.
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Writes the template to a new world folder.
+     * @param target World folder to create.
+     * @return Statistics about the write.
+     */
+    public WorldCopier.CopyResult materialize(File target) {
+        long start = System.nanoTime();
+        Path targetPath = target.toPath();
+
+        try {
+            for(String directory : directories) {
+                Files.createDirectories(targetPath.resolve(directory));
+            }
+
+            for(TemplateFile file : files) {
+                try(FileChannel out = FileChannel.open(targetPath.resolve(file.path()), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(file.data());
+
+                    while(buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+            }
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        return new WorldCopier.CopyResult(bytes, files.size(), 0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * A single file of the template.
+     * @param path Path of the file, relative to the world folder.
+     * @param data Contents of the file.
+     */
+    private record TemplateFile(String path, byte[] data) {}
+}
\ No newline at end of file
@@ -0,0 +1,209 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.arena.file;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the most recently used arena worlds in memory, up to a size limit.
+ */
+public class ArenaTemplateCache {
+    private final long maxBytes;
+    private final Map<String, ArenaTemplate> templates = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> versions = new HashMap<>();
+    private final Map<String, CompletableFuture<ArenaTemplate>> loading = new HashMap<>();
+    private final Set<String> tooLarge = new HashSet<>();
+    private long cachedBytes = 0;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates the cache.
+     * @param maxBytes Total size of the templates that can be held at once.
+     */
+    public ArenaTemplateCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets the template of an arena world, loading it from disk if it isn't cached.
+     * When several copies of the same arena miss at once, one of them loads it and the others wait for it.
+     * Returns null if the arena is too large to be cached.
+     * @param arenaFile Arena world to get the template of.
+     * @return Arena template, or null.
+     */
+    public ArenaTemplate template(ArenaFile arenaFile) {
+        int version;
+        CompletableFuture<ArenaTemplate> load = new CompletableFuture<>();
+        CompletableFuture<ArenaTemplate> loading;
+
+        synchronized(this) {
+            ArenaTemplate template = templates.get(arenaFile.id());
+
+            if(template != null) {
+                hits.incrementAndGet();
+                return template;
+            }
+
+            // Arenas that were too large are remembered, so they aren't measured again on every copy.
+            if(tooLarge.contains(arenaFile.id())) {
+                misses.incrementAndGet();
+                return null;
+            }
+
+            version = versions.getOrDefault(arenaFile.id(), 0);
+            loading = this.loading.putIfAbsent(arenaFile.id(), load);
+        }
+
+        // Another copy is already loading the arena.
+        if(loading != null) {
+            hits.incrementAndGet();
+            return await(loading);
+        }
+
+        misses.incrementAndGet();
+
+        // Loaded outside the lock, so other arenas can still be copied while this one is read.
+        try {
+            ArenaTemplate template = ArenaTemplate.load(arenaFile.file(), maxBytes);
+            store(arenaFile.id(), version, template);
+            load.complete(template);
+            return template;
+        }
+        catch (RuntimeException exception) {
+            load.completeExceptionally(exception);
+            throw exception;
+        }
+        finally {
+            synchronized(this) {
+                this.loading.remove(arenaFile.id(), load);
+            }
+        }
+    }
+
+    /**
+     * Adds a loaded template to the cache, unless the arena was saved again while it was being read.
+     * @param id Id of the arena.
+     * @param version Version of the arena when the load started.
+     * @param template Loaded template, or null if the arena was too large.
+     */
+    private synchronized void store(String id, int version, ArenaTemplate template) {
+        // The arena was saved again while it was being read, so the template may be outdated.
+        if(versions.getOrDefault(id, 0) != version) {
+            return;
+        }
+
+        if(template == null) {
+            tooLarge.add(id);
+            return;
+        }
+
+        ArenaTemplate previous = templates.put(id, template);
+        if(previous != null) {
+            cachedBytes -= previous.bytes();
+        }
+
+        cachedBytes += template.bytes();
+        evict();
+    }
+
+    /**
+     * Waits for another copy's load of a template.
+     * @param loading Future of the load.
+     * @return Arena template, or null if the arena was too large.
+     */
+    private ArenaTemplate await(CompletableFuture<ArenaTemplate> loading) {
+        try {
+            return loading.join();
+        }
+        catch (CompletionException exception) {
+            if(exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw exception;
+        }
+    }
+
+    /**
+     * Removes an arena from the cache.
+     * Used when the arena world is saved again.
+     * @param id Id of the arena.
+     */
+    public synchronized void invalidate(String id) {
+        versions.merge(id, 1, Integer::sum);
+        tooLarge.remove(id);
+        loading.remove(id);
+        ArenaTemplate template = templates.remove(id);
+
+        if(template != null) {
+            cachedBytes -= template.bytes();
+        }
+    }
+
+    /**
+     * Get the total size of all cached templates.
+     * @return Cached bytes.
+     */
+    public synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Get the number of copies that were written from memory.
+     * @return Cache hits.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of copies that had to read the arena from disk.
+     * @return Cache misses.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Removes the least recently used templates until the cache is within its limit.
+     */
+    private void evict() {
+        Iterator<ArenaTemplate> iterator = templates.values().iterator();
+
+        while(cachedBytes > maxBytes && iterator.hasNext()) {
+            cachedBytes -= iterator.next().bytes();
+            iterator.remove();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,185 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.arena.file;
+
+import gg.airplaines.tournaments.game.arena.ArenaBounds;
+import gg.airplaines.tournaments.utils.WorldCopier;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Removes the parts of a saved arena world that are outside the arena's bounds.
+ * Every game copies the saved world, so anything left out here is never copied again.
+ */
+public class ArenaTrimmer {
+    private static final int SECTOR_SIZE = 4096;
+    private static final int CHUNKS_PER_REGION = 1024;
+
+    /**
+     * Check if a file of an arena world should be kept.
+     * Region files are kept only if they overlap the bounds. Every other file is always kept.
+     * @param file File to check.
+     * @param bounds Bounds of the arena.
+     * @return Whether the file should be kept.
+     */
+    public static boolean isInside(Path file, ArenaBounds bounds) {
+        int[] region = regionCoordinates(file);
+        return region == null || bounds.containsRegion(region[0], region[1]);
+    }
+
+    /**
+     * Removes every chunk outside the bounds from the region files of a world.
+     * Region files left without chunks are deleted.
+     * Must only be used on a world that isn't loaded.
+     * @param worldFolder World folder to trim.
+     * @param bounds Bounds of the arena.
+     * @return Number of chunks removed.
+     */
+    public static int trimChunks(File worldFolder, ArenaBounds bounds) {
+        List<Path> regionFiles;
+        try(Stream<Path> files = Files.walk(worldFolder.toPath())) {
+            regionFiles = files.filter(file -> regionCoordinates(file) != null).toList();
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        int removed = 0;
+        for(Path regionFile : regionFiles) {
+            try {
+                removed += trimRegion(regionFile, bounds);
+            }
+            catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Rewrites a region file with only the chunks inside the bounds.
+     * The chunks that are kept are packed together, so the file only takes up the space they need.
+     * @param file Region file to trim.
+     * @param bounds Bounds of the arena.
+     * @return Number of chunks removed.
+     * @throws IOException If the file could not be read or written.
+     */
+    private static int trimRegion(Path file, ArenaBounds bounds) throws IOException {
+        int[] region = regionCoordinates(file);
+        byte[] data = Files.readAllBytes(file);
+
+        // Too small to have a header, so there is nothing to trim.
+        if(region == null || data.length < SECTOR_SIZE * 2) {
+            return 0;
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(data);
+        int[] locations = new int[CHUNKS_PER_REGION];
+        int removed = 0;
+        int keptSectors = 0;
+
+        // Reads the chunk location table, dropping every chunk outside the bounds.
+        for(int index = 0; index < CHUNKS_PER_REGION; index++) {
+            int location = in.getInt(index * 4);
+            if(location == 0) {
+                continue;
+            }
+
+            int offset = location >>> 8;
+            int sectors = location & 0xFF;
+
+            if(!bounds.containsChunk((region[0] << 5) + (index & 31), (region[1] << 5) + (index >> 5))
+                    || (long) (offset + sectors) * SECTOR_SIZE > data.length) {
+                removed++;
+                continue;
+            }
+
+            locations[index] = location;
+            keptSectors += sectors;
+        }
+
+        if(removed == 0) {
+            return 0;
+        }
+
+        if(keptSectors == 0) {
+            Files.delete(file);
+            return removed;
+        }
+
+        // Writes the new header and packs the remaining chunks after it.
+        ByteBuffer out = ByteBuffer.allocate((2 + keptSectors) * SECTOR_SIZE);
+        int nextSector = 2;
+        for(int index = 0; index < CHUNKS_PER_REGION; index++) {
+            int location = locations[index];
+            if(location == 0) {
+                continue;
+            }
+
+            int offset = location >>> 8;
+            int sectors = location & 0xFF;
+
+            out.putInt(index * 4, (nextSector << 8) | sectors);
+            out.putInt(SECTOR_SIZE + index * 4, in.getInt(SECTOR_SIZE + index * 4));
+            out.put(nextSector * SECTOR_SIZE, data, offset * SECTOR_SIZE, sectors * SECTOR_SIZE);
+            nextSector += sectors;
+        }
+
+        Files.write(file, out.array());
+        return removed;
+    }
+
+    /**
+     * Get the coordinates of a region file from its name.
+     * Returns null if the file is not a region file.
+     * @param file File to get the coordinates of.
+     * @return Region x and z coordinates.
+     */
+    private static int[] regionCoordinates(Path file) {
+        if(!WorldCopier.isRegionFile(file)) {
+            return null;
+        }
+
+        String[] parts = file.getFileName().toString().split("\\.");
+        if(parts.length != 4 || !parts[0].equals("r")) {
+            return null;
+        }
+
+        try {
+            return new int[] {Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+        }
+        catch (NumberFormatException exception) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
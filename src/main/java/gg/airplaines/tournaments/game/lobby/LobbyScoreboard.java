@@ -86,7 +86,7 @@ public class LobbyScoreboard extends CustomScoreboard {
                 helper.removeSlot(11);
                 helper.setSlot(10, "&7" + DateUtils.currentDateToString());
                 helper.setSlot(9, "");
-                helper.setSlot(8, "&bHost: &f" + plugin.duelEventManager().host().getName());
+                helper.setSlot(8, "&bHost: &f" + plugin.duelEventManager().hostName());
                 helper.setSlot(7, "&bKit: &f" + plugin.duelEventManager().kit().name());
                 helper.setSlot(6, "&bBracket: &f" + plugin.duelEventManager().eventType().getName());
                 helper.setSlot(5, "&bTeam: &f" + plugin.duelEventManager().teamSize().displayName() + " &7(" + plugin.duelEventManager().bestOf().getName() + "&7)");
@@ -105,7 +105,7 @@ public class LobbyScoreboard extends CustomScoreboard {
                 helper.removeSlot(11);
                 helper.setSlot(10, "&7" + DateUtils.currentDateToString());
                 helper.setSlot(9, "");
-                helper.setSlot(8, "&bHost: &f" + plugin.duelEventManager().host().getName());
+                helper.setSlot(8, "&bHost: &f" + plugin.duelEventManager().hostName());
                 helper.setSlot(7, "&bKit: &f" + plugin.duelEventManager().kit().name());
                 helper.setSlot(6, "&bBracket: &f" + plugin.duelEventManager().eventType().getName());
                 helper.setSlot(5, "&bTeam: &f" + plugin.duelEventManager().teamSize().displayName() + " &7(" + plugin.duelEventManager().bestOf().getName() + "&7)");
@@ -24,28 +24,21 @@
  */
 package gg.airplaines.tournaments.game.tournament;
 
-import at.stefangeyer.challonge.Challonge;
-import at.stefangeyer.challonge.exception.DataAccessException;
-import at.stefangeyer.challonge.model.Credentials;
-import at.stefangeyer.challonge.model.Match;
-import at.stefangeyer.challonge.model.Participant;
-import at.stefangeyer.challonge.model.Tournament;
-import at.stefangeyer.challonge.model.enumeration.MatchState;
-import at.stefangeyer.challonge.model.enumeration.TournamentType;
-import at.stefangeyer.challonge.model.query.MatchQuery;
-import at.stefangeyer.challonge.model.query.ParticipantQuery;
-import at.stefangeyer.challonge.model.query.TournamentQuery;
-import at.stefangeyer.challonge.rest.RestClient;
-import at.stefangeyer.challonge.rest.retrofit.RetrofitRestClient;
-import at.stefangeyer.challonge.serializer.Serializer;
-import at.stefangeyer.challonge.serializer.gson.GsonSerializer;
 import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.AdmissionController;
 import gg.airplaines.tournaments.game.Game;
 import gg.airplaines.tournaments.game.arena.Arena;
 import gg.airplaines.tournaments.game.team.Team;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketMatch;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketProvider;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketResult;
+import gg.airplaines.tournaments.game.tournament.bracket.ChallongeBracketProvider;
+import gg.airplaines.tournaments.game.tournament.bracket.LocalBracketProvider;
+import gg.airplaines.tournaments.game.tournament.team.BalancedTeamFormation;
 import gg.airplaines.tournaments.game.tournament.team.EventTeam;
 import gg.airplaines.tournaments.game.tournament.team.EventTeamManager;
-import gg.airplaines.tournaments.utils.MapUtils;
+import gg.airplaines.tournaments.game.tournament.team.RandomTeamFormation;
+import gg.airplaines.tournaments.game.tournament.team.TeamFormationStrategy;
 import gg.airplaines.tournaments.utils.chat.ChatUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
@@ -56,18 +49,17 @@ import java.util.*;
 public class DuelEvent {
     private final TournamentsPlugin plugin;
     private final EventTeamManager eventTeamManager = new EventTeamManager();
-    private final Challonge challonge;
-    private Tournament tournament;
+    private final UUID uuid;
+    private final BracketProvider bracket;
+    private final ResultJournal journal;
+    private List<EventTeam> seeded = new ArrayList<>();
     private int taskID;
+    private boolean stopped = false;
+    private boolean recheckScheduled = false;
+    private long forfeitsAfter = 0;
 
     public DuelEvent(final TournamentsPlugin plugin) {
-        this.plugin = plugin;
-
-        // Connects to Challonge
-        Credentials credentials = new Credentials(plugin.settingsManager().getConfig().getString("challonge.username"), plugin.settingsManager().getConfig().getString("challonge.api-key"));
-        Serializer serializer = new GsonSerializer();
-        RestClient restClient = new RetrofitRestClient();
-        challonge = new Challonge(credentials, serializer, restClient);
+        this(plugin, UUID.randomUUID());
 
         // Starts the tournament.
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
@@ -76,36 +68,49 @@ public class DuelEvent {
         });
     }
 
-    public void addResults(Match match, Team winner, Team loser) {
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, ()-> {
-            MatchQuery.MatchQueryBuilder builder;
+    /**
+     * Resumes an event from its checkpoint, after a crash or restart.
+     * Players need time to reconnect, so nobody forfeits until the resume grace period is over.
+     * @param plugin Instance of the plugin.
+     * @param checkpoint Snapshot of the event.
+     */
+    public DuelEvent(final TournamentsPlugin plugin, EventCheckpoint.Checkpoint checkpoint) {
+        this(plugin, checkpoint.uuid());
 
-            if(winner.eventTeam().challongeID().equals(match.getPlayer1Id())) {
-                builder = MatchQuery.builder()
-                        .winnerId(winner.eventTeam().challongeID())
-                        .scoresCsv(winner.score() + "-" + loser.score());
-            }
-            else {
-                builder = MatchQuery.builder()
-                        .winnerId(winner.eventTeam().challongeID())
-                        .scoresCsv(loser.score() + "-" + winner.score());
-            }
+        long grace = Math.max(0, plugin.settingsManager().getConfig().getLong("checkpoint.resume-grace", 120));
+        forfeitsAfter = System.currentTimeMillis() + grace * 1000;
 
-            boolean sent = false;
-            while(!sent) {
-                try {
-                    challonge.updateMatch(match, builder.build());
-                    sent = true;
-                    Thread.sleep(1000);
-                }
-                catch (DataAccessException | InterruptedException exception) {
-                    exception.printStackTrace();
-                }
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            resumeTournament(checkpoint);
+            startEvent();
 
-            }
+            // Forfeits teams that didn't come back once the grace period is over.
+            plugin.getServer().getScheduler().runTaskLater(plugin, this::dispatch, grace * 20 + 1);
         });
     }
 
+    private DuelEvent(final TournamentsPlugin plugin, UUID uuid) {
+        this.plugin = plugin;
+        this.uuid = uuid;
+
+        // Runs the bracket locally, mirrored to Challonge unless the backend is set to LOCAL.
+        BracketProvider localBracket = new LocalBracketProvider(plugin.duelEventManager().eventType(), true);
+        if(plugin.settingsManager().getConfig().getString("bracket.backend", "CHALLONGE").equalsIgnoreCase("LOCAL")) {
+            bracket = localBracket;
+        }
+        else {
+            bracket = new ChallongeBracketProvider(plugin, localBracket);
+        }
+
+        // Results are journaled before they are reported, so they survive a restart.
+        journal = new ResultJournal(plugin, uuid, bracket, this::checkpoint, this::dispatch);
+    }
+
+    public void addResults(BracketMatch match, Team winner, Team loser) {
+        journal.record(match, winner.eventTeam(), winner.score(), loser.score(), false);
+        plugin.duelEventManager().ratingTable().update(winner.eventTeam(), loser.eventTeam());
+    }
+
     public void broadcast(String message) {
         for(Player player : participants()) {
             ChatUtils.chat(player, message);
@@ -113,135 +118,78 @@ public class DuelEvent {
     }
 
     private void createTournament() {
-        try {
-            // Create the tournament.
-            {
-                TournamentQuery.TournamentQueryBuilder builder = TournamentQuery.builder();
-                builder.name("airplanes.gg - " + plugin.duelEventManager().host().getName() + "'s " + plugin.duelEventManager().kit().name() + " Tournament")
-                        .gameName("Minecraft")
-                        .description(plugin.duelEventManager().kit().name() + " tournament on airplanes.gg. Join us at play.airplanes.gg")
-                        .holdThirdPlaceMatch(true);
-
-                // Sets the tournament type of the tournament.
-                switch (plugin.duelEventManager().eventType()) {
-                    case SINGLE_ELIMINATION -> builder.tournamentType(TournamentType.SINGLE_ELIMINATION);
-                    case DOUBLE_ELIMINATION -> builder.tournamentType(TournamentType.DOUBLE_ELIMINATION);
-                }
-                tournament = challonge.createTournament(builder.build());
-            }
+        // Create teams.
+        List<Player> waitingPlayers = new ArrayList<>(plugin.getServer().getOnlinePlayers());
 
-            // Add players to the tournament.
-            {
-                List<ParticipantQuery> queries = new ArrayList<>();
-
-                // Create teams.
-                switch (plugin.duelEventManager().teamSize()) {
-                    case ONE_V_ONE -> {
-                        for(Player player : plugin.getServer().getOnlinePlayers()) {
-
-                            // If set, stops the host from participating.
-                            if(player.equals(plugin.duelEventManager().host()) && !plugin.duelEventManager().hostPlaying()) {
-                                continue;
-                            }
-
-                            eventTeamManager.createTeam(player);
-                        }
-                    }
-
-                    case TWO_V_TWO_RANDOM -> {
-                        List<Player> waitingPlayers = new ArrayList<>(plugin.getServer().getOnlinePlayers());
-                        Collections.shuffle(waitingPlayers);
-
-                        // If set, stops the host from participating.
-                        if(!plugin.duelEventManager().hostPlaying()) {
-                            waitingPlayers.remove(plugin.duelEventManager().host());
-                        }
-
-                        while (waitingPlayers.size() != 0) {
-
-                            if (waitingPlayers.size() >= 2) {
-                                Player one = waitingPlayers.get(0);
-                                Player two = waitingPlayers.get(1);
-
-                                waitingPlayers.remove(one);
-                                waitingPlayers.remove(two);
-
-                                List<Player> team = new ArrayList<>();
-                                team.add(one);
-                                team.add(two);
-                                eventTeamManager.createTeam(team);
-                            }
-                            else {
-                                Player one = waitingPlayers.get(0);
-
-                                waitingPlayers.remove(one);
-                                eventTeamManager.createTeam(one);
-                            }
-                        }
-                    }
-
-                    case THREE_V_THREE_RANDOM -> {
-                        List<Player> waitingPlayers = new ArrayList<>(plugin.getServer().getOnlinePlayers());
-                        Collections.shuffle(waitingPlayers);
-
-                        // If set, stops the host from participating.
-                        if(!plugin.duelEventManager().hostPlaying()) {
-                            waitingPlayers.remove(plugin.duelEventManager().host());
-                        }
-
-                        while (waitingPlayers.size() != 0) {
-
-                            if (waitingPlayers.size() >= 3) {
-                                Player one = waitingPlayers.get(0);
-                                Player two = waitingPlayers.get(1);
-                                Player three = waitingPlayers.get(2);
-
-                                waitingPlayers.remove(one);
-                                waitingPlayers.remove(two);
-                                waitingPlayers.remove(three);
-
-                                List<Player> team = new ArrayList<>();
-                                team.add(one);
-                                team.add(two);
-                                team.add(three);
-                                eventTeamManager.createTeam(team);
-                            }
-                            else if(waitingPlayers.size() == 2) {
-                                Player one = waitingPlayers.get(0);
-                                Player two = waitingPlayers.get(1);
-
-                                waitingPlayers.remove(one);
-                                waitingPlayers.remove(two);
-
-                                List<Player> team = new ArrayList<>();
-                                team.add(one);
-                                team.add(two);
-                                eventTeamManager.createTeam(team);
-                            }
-                            else {
-                                Player one = waitingPlayers.get(0);
-
-                                waitingPlayers.remove(one);
-                                eventTeamManager.createTeam(one);
-                            }
-                        }
-                    }
-                }
+        // If set, stops the host from participating.
+        if(!plugin.duelEventManager().hostPlaying()) {
+            waitingPlayers.remove(plugin.duelEventManager().host());
+        }
 
-                // Create challonge participant queries.
-                eventTeamManager.teams().forEach(team -> queries.add(ParticipantQuery.builder().name(team.name()).build()));
+        int playersPerTeam = Math.max(1, plugin.duelEventManager().teamSize().playersPerTeam());
+        teamFormation().form(waitingPlayers, playersPerTeam).forEach(eventTeamManager::createTeam);
 
-                // Update challonge participant ids.
-                List<Participant> participants = challonge.bulkAddParticipants(tournament, queries);
-                for(Participant participant : participants) {
-                    eventTeamManager.team(participant.getName()).challongeID(participant.getId());
-                }
+        // Creates the bracket, with the highest rated teams seeded first.
+        seeded = plugin.duelEventManager().ratingTable().seed(eventTeamManager.teams());
+        bracket.create(seeded);
+        checkpoint();
+    }
+
+    /**
+     * Recreates the teams and bracket of an event from its checkpoint.
+     * Results that were journaled but not in the checkpoint are replayed by the journal once the event starts.
+     * @param checkpoint Snapshot of the event.
+     */
+    private void resumeTournament(EventCheckpoint.Checkpoint checkpoint) {
+        List<EventTeam> teams = new ArrayList<>();
+        for(EventCheckpoint.SavedTeam team : checkpoint.teams()) {
+            teams.add(eventTeamManager.createTeam(team.name(), team.players(), team.challongeID()));
+        }
+
+        List<BracketResult> results = new ArrayList<>();
+        for(EventCheckpoint.SavedResult result : checkpoint.results()) {
+            if(result.winner() < 0 || result.winner() >= teams.size()) {
+                plugin.getLogger().warning("Skipping the saved result of match " + result.match() + ", its winner is not in the event.");
+                continue;
             }
+
+            results.add(new BracketResult(result.match(), teams.get(result.winner()), result.winnerScore(), result.loserScore(), result.forfeited()));
         }
-        catch (DataAccessException exception) {
-            ChatUtils.chat(plugin.duelEventManager().host(), "&c&lError &8» &cSomething went wrong while creating the tournament! Check console for details.");
-            plugin.duelEventManager().reset();
+
+        seeded = teams;
+        bracket.resume(teams, results, checkpoint.url());
+    }
+
+    /**
+     * Writes a snapshot of the event to disk, if anything changed since the last one.
+     * @return Whether the snapshot on disk is up to date. Always true once the event has stopped.
+     */
+    public synchronized boolean checkpoint() {
+        if(stopped) {
+            return true;
+        }
+
+        return plugin.duelEventManager().checkpoint().save(uuid, seeded, bracket);
+    }
+
+    /**
+     * Gets the strategy teams are formed with, set by teams.formation in the config.
+     * @return Team formation strategy.
+     */
+    private TeamFormationStrategy teamFormation() {
+        String formation = plugin.settingsManager().getConfig().getString("teams.formation", "RANDOM");
+
+        if(formation.equalsIgnoreCase("BALANCED")) {
+            RatingTable ratingTable = plugin.duelEventManager().ratingTable();
+            int passes = Math.max(0, plugin.settingsManager().getConfig().getInt("teams.balance-passes", 100));
+            return new BalancedTeamFormation(player -> ratingTable.rating(player.getUniqueId()), passes);
         }
+
+        if(!formation.equalsIgnoreCase("RANDOM")) {
+            plugin.getLogger().warning("Unknown teams.formation " + formation + ", using RANDOM.");
+        }
+
+        return new RandomTeamFormation();
     }
 
     public Collection<Player> participants() {
@@ -259,217 +207,219 @@ public class DuelEvent {
         plugin.duelEventManager().eventStatus(EventStatus.RUNNING);
         // TODO: Scoreboard, in the main thread.
 
-        // Attempts to start the tournament through challonge.
-        boolean started = false;
-        while(!started) {
-            try {
-                challonge.startTournament(tournament);
-                started = true;
-            }
-            catch (DataAccessException exception) {
-                exception.printStackTrace();
-                try {
-                    Thread.sleep(100);
-                }
-                catch (InterruptedException exception2) {
-                    exception2.printStackTrace();
-                }
-            }
+        // Starts loading arena worlds for the event's kit, so the first matches don't wait on a copy.
+        for(Arena arena : plugin.arenaManager().getArenas(plugin.duelEventManager().kit())) {
+            plugin.gameManager().prepare(arena, plugin.duelEventManager().kit());
         }
 
         plugin.getServer().getScheduler().runTask(plugin, () -> {
             // Broadcast start message.
             World world = Bukkit.getWorld("world");
             ChatUtils.broadcast(world, "&8&m+-----------------------***-----------------------+");
-            ChatUtils.broadcast(world, ChatUtils.centerText("&b&l" + plugin.duelEventManager().host().getName() + "'s Tournament"));
+            ChatUtils.broadcast(world, ChatUtils.centerText("&b&l" + plugin.duelEventManager().hostName() + "'s Tournament"));
             ChatUtils.broadcast(world, "");
             ChatUtils.broadcast(world, ChatUtils.centerText("&bKit: &f" + plugin.duelEventManager().kit().name()));
             ChatUtils.broadcast(world, ChatUtils.centerText("&bTeams: &f" + plugin.duelEventManager().teamSize().displayName() + " &7(" + plugin.duelEventManager().bestOf().toString() + "&7)"));
             ChatUtils.broadcast(world, "");
-            ChatUtils.broadcast(world, ChatUtils.centerText("<aqua>Bracket: <white><click:open_url:'https://www.challonge.com/" + tournament.getUrl() + "'>https://challonge.com/" + tournament.getUrl() + "</click>"));
-            ChatUtils.broadcast(world, "");
+            if(bracket.url() != null) {
+                ChatUtils.broadcast(world, ChatUtils.centerText("<aqua>Bracket: <white><click:open_url:'" + bracket.url() + "'>" + bracket.url() + "</click>"));
+                ChatUtils.broadcast(world, "");
+            }
             ChatUtils.broadcast(world, "&8&m+-----------------------***-----------------------+");
 
             // TODO: Give spectator items.
         });
 
-        // Repeatedly loops through the matches, starting any that are waiting to be started.
-        taskID = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, () -> {
-            boolean matchesObtained = false;
-            int games = 0;
-            while(!matchesObtained) {
-                try {
-                    // Gets all matches that aren't complete.
-                    List<Match> matches = new ArrayList<>();
-                    for(Match match : challonge.getMatches(tournament)) {
-                        if (match.getState() == MatchState.COMPLETE) {
-                            continue;
-                        }
-                        matches.add(match);
-                    }
-
-                    // Ends the event if there are no matches left.
-                    if(matches.size() == 0) {
-                        stopEvent();
-                        return;
-                    }
-
-                    // Loops through all the matches waiting to be started.
-                    for(Match match : matches) {
-                        // Makes sure the match hasn't already been started.
-                        if(match.getUnderwayAt() != null) {
-                            continue;
-                        }
-
-                        // Makes sure match has 2 waiting players.
-                        if(match.getPlayer1Id() == null || match.getPlayer2Id() == null) {
-                            continue;
-                        }
-
-                        EventTeam team1 = eventTeamManager.team(match.getPlayer1Id());
-                        EventTeam team2 = eventTeamManager.team(match.getPlayer2Id());
-
-                        // Check that both teams are online.
-                        if(team1.players().size() == 0) {
-                            match.setForfeited(true);
-                            match.setWinnerId(team2.challongeID());
-
-                            MatchQuery query = MatchQuery.builder()
-                                    .winnerId(team2.challongeID())
-                                    .scoresCsv("0-" + plugin.duelEventManager().bestOf().neededWins())
-                                    .build();
-                            challonge.updateMatch(match, query);
-                            continue;
-                        }
-                        else if(team2.players().size() == 0) {
-                            match.setForfeited(true);
-                            match.setWinnerId(team1.challongeID());
-
-                            MatchQuery query = MatchQuery.builder()
-                                    .winnerId(team1.challongeID())
-                                    .scoresCsv(plugin.duelEventManager().bestOf().neededWins() + "-0")
-                                    .build();
-                            challonge.updateMatch(match, query);
-                            continue;
-                        }
-
-                        if(games >= 14) {
-                            continue;
-                        }
-
-                        // Tell challonge that the match is underway.
-                        boolean sent = false;
-                        while (!sent) {
-                            try {
-                                challonge.markMatchAsUnderway(match);
-                                sent = true;
-                                games++;
-                                Thread.sleep(1000);
-                            }
-                            catch (DataAccessException | InterruptedException exception) {
-                                exception.printStackTrace();
-                            }
-                        }
-
-                        // Physically start the match, delayed by 2 ticks (100 ms)
-                        plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, () -> {
-                            List<Player> players = new ArrayList<>();
-                            players.addAll(team1.players());
-                            players.addAll(team2.players());
-
-                            for(Player player : players) {
-                                Game game = plugin.gameManager().game(player);
-
-                                if(game == null) {
-                                    continue;
-                                }
-
-                                if(game.spectators().contains(player)) {
-                                    game.removePlayer(player);
-                                }
-                            }
-
-                            List<Arena> arenas = new ArrayList<>(plugin.arenaManager().getArenas(plugin.duelEventManager().kit()));
-                            Collections.shuffle(arenas);
-
-                            plugin.gameManager().createGame(arenas.get(0), plugin.duelEventManager().kit(), match).thenAccept(game -> {
-                                plugin.getServer().getScheduler().runTask(plugin, () -> {
-                                    game.addPlayers(team1);
-                                    game.addPlayers(team2);
-                                    game.startGame();
-                                });
-                            });
-                        }, 2);
-                    }
-
-                    // Mark that the matches have been obtained.
-                    matchesObtained = true;
+        // Matches are started as soon as the results before them come in.
+        // This loop only catches anything that was missed, like a game that could not be created.
+        long interval = Math.max(1, plugin.settingsManager().getConfig().getLong("bracket.reconcile-interval", 30)) * 20;
+        taskID = plugin.getServer().getScheduler().runTaskTimer(plugin, this::dispatch, 0, interval).getTaskId();
+
+        // Reports any results left in the journal.
+        journal.flush();
+    }
+
+    /**
+     * Starts every match that is ready to be played, and forfeits matches with a team that is offline.
+     * Called whenever results are reported, and periodically to reconcile.
+     * Players can only be looked up on the main thread, so the online players are gathered there,
+     * and the matches are dispatched asynchronously.
+     */
+    private void dispatch() {
+        if(!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(plugin, this::dispatch);
+            return;
+        }
+
+        Set<UUID> online = new HashSet<>();
+        for(Player player : Bukkit.getOnlinePlayers()) {
+            online.add(player.getUniqueId());
+        }
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> dispatch(online));
+    }
+
+    /**
+     * Starts every match that is ready to be played, and forfeits matches with a team that is offline.
+     * @param online Players that were online when the dispatch was requested.
+     */
+    private synchronized void dispatch(Set<UUID> online) {
+        if(stopped) {
+            return;
+        }
+
+        // Forfeits can open up new matches, so keeps looking until nothing changes.
+        // A resumed event waits for players to reconnect first.
+        boolean changed = System.currentTimeMillis() >= forfeitsAfter;
+        while(changed) {
+            changed = false;
+
+            for(BracketMatch match : bracket.openMatches()) {
+                EventTeam team1 = match.team1();
+                EventTeam team2 = match.team2();
+
+                // Check that both teams are online.
+                if(!isOnline(team1, online)) {
+                    changed |= forfeit(match, team2);
                 }
-                catch (DataAccessException exception) {
-                    exception.printStackTrace();
-
-                    // Wait before trying again.
-                    try {
-                        Thread.sleep(100);
-                    }
-                    catch (InterruptedException ex) {
-                        ex.printStackTrace();
-                    }
+                else if(!isOnline(team2, online)) {
+                    changed |= forfeit(match, team1);
                 }
             }
-        }, 0, 200).getTaskId();
-    }
+        }
 
-    public void stopEvent() {
-        // Cancels the repeating task.
-        Bukkit.getScheduler().cancelTask(taskID);
+        // Admits matches in priority order until the server has no room for more.
+        AdmissionController admissionController = plugin.gameManager().admissionController();
+        Map<BracketMatch, Arena> starting = new LinkedHashMap<>();
+        boolean waiting = false;
 
-        // Finalizes the tournament
-        boolean finished = false;
-        while(!finished) {
-            try {
-                challonge.finalizeTournament(tournament);
-                finished = true;
+        for(BracketMatch match : admissionController.order(bracket.openMatches())) {
+            // Only happens while a resumed event is waiting for players to reconnect.
+            if(!isOnline(match.team1(), online) || !isOnline(match.team2(), online)) {
+                continue;
             }
-            catch (DataAccessException exception) {
-                exception.printStackTrace();
 
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException ex) {
-                    ex.printStackTrace();
-                }
+            AdmissionController.Admission admission = admissionController.admit(plugin.duelEventManager().kit());
+
+            if(!admission.admitted()) {
+                waiting = true;
+                break;
             }
+
+            bracket.markUnderway(match);
+            starting.put(match, admission.arena());
         }
 
-        // Loads all participants in the tournament.
-        Map<Participant, Integer> results = new HashMap<>();
-        List<Participant> participants = new ArrayList<>();
-        boolean sent = false;
-        while(!sent) {
-            try {
-                participants.addAll(challonge.getParticipants(tournament));
-                sent = true;
-            }
-            catch (DataAccessException exception) {
-                exception.printStackTrace();
+        // Starts every admitted match together on the next tick, so a whole round begins at once.
+        if(!starting.isEmpty()) {
+            plugin.getServer().getScheduler().runTask(plugin, () -> startMatches(starting));
+        }
 
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException ex) {
-                    ex.printStackTrace();
+        // Checks again soon for matches that had to wait, instead of waiting for the next reconcile.
+        if(waiting && !recheckScheduled) {
+            recheckScheduled = true;
+            plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
+                synchronized(this) {
+                    recheckScheduled = false;
                 }
+                dispatch();
+            }, 40);
+        }
+
+        // Ends the event if there are no matches left.
+        if(bracket.isComplete()) {
+            stopped = true;
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, this::stopEvent);
+            return;
+        }
+
+        // Called after every batch of results and on every reconcile, so the checkpoint is never far behind.
+        checkpoint();
+    }
+
+    /**
+     * Forfeits a match to a team, because the other team is offline.
+     * The forfeit is journaled like any other result, so it isn't lost if the server stops before the next checkpoint.
+     * It is also reported right away, so the matches it opens up can be checked in the same dispatch.
+     * The journal reporting it again later does nothing, since the match already has a result.
+     * @param match Match to forfeit.
+     * @param winner Team that is still online.
+     * @return Whether the result was recorded.
+     */
+    private boolean forfeit(BracketMatch match, EventTeam winner) {
+        int neededWins = plugin.duelEventManager().bestOf().neededWins();
+        journal.record(match, winner, neededWins, 0, true);
+        return bracket.reportResult(match, winner, neededWins, 0, true);
+    }
+
+    /**
+     * Check if any player on a team is online.
+     * @param team Team to check.
+     * @param online Players that are online.
+     * @return Whether the team has a player online.
+     */
+    private boolean isOnline(EventTeam team, Set<UUID> online) {
+        for(UUID playerUUID : team.playerUUIDs()) {
+            if(online.contains(playerUUID)) {
+                return true;
             }
         }
 
-        // Stores all participant's final rank.
-        for(Participant participant : participants) {
-            results.put(participant, participant.getFinalRank());
+        return false;
+    }
+
+    /**
+     * Starts the games of a batch of matches. Their worlds are all created in parallel.
+     * @param matches Matches to start, already marked as underway, and the arenas they were admitted to.
+     */
+    private void startMatches(Map<BracketMatch, Arena> matches) {
+        for(Map.Entry<BracketMatch, Arena> entry : matches.entrySet()) {
+            BracketMatch match = entry.getKey();
+            EventTeam team1 = match.team1();
+            EventTeam team2 = match.team2();
+
+            List<Player> players = new ArrayList<>();
+            players.addAll(team1.players());
+            players.addAll(team2.players());
+
+            for(Player player : players) {
+                Game game = plugin.gameManager().game(player);
+
+                if(game == null) {
+                    continue;
+                }
+
+                if(game.spectators().contains(player)) {
+                    game.removePlayer(player);
+                }
+            }
+
+            plugin.gameManager().createGame(entry.getValue(), plugin.duelEventManager().kit(), match).thenAccept(game -> {
+                plugin.getServer().getScheduler().runTask(plugin, () -> {
+                    game.addPlayers(team1);
+                    game.addPlayers(team2);
+                    game.startGame();
+                });
+            }).exceptionally(exception -> {
+                plugin.getLogger().severe("Could not create the game for match " + match.id() + ": " + exception);
+
+                // Lets the match be picked up again when the matches are reconciled.
+                bracket.unmarkUnderway(match);
+                return null;
+            });
         }
+    }
 
-        // Sorts the results to get final rankings.
-        Map<Participant, Integer> rankings = MapUtils.sortByValue(results);
-        List<Participant> top = new ArrayList<>(rankings.keySet());
+    public void stopEvent() {
+        // Cancels the repeating task.
+        Bukkit.getScheduler().cancelTask(taskID);
+
+        // Finalizes the tournament, and gets the final rankings.
+        journal.close(true);
+        plugin.duelEventManager().checkpoint().delete();
+        bracket.finish();
+        plugin.duelEventManager().ratingTable().save();
+        List<EventTeam> top = bracket.standings();
 
         // Display the end message to all players in the tournament.
         plugin.getServer().getScheduler().runTask(plugin, () -> {
@@ -477,17 +427,13 @@ public class DuelEvent {
             broadcast(ChatUtils.centerText("&b&lTournament"));
             broadcast(ChatUtils.centerText("&bKit: &f" + plugin.duelEventManager().kit().name()));
             broadcast("");
-            broadcast(ChatUtils.centerText("&6&l1st: &f" + top.get(0).getName()));
-            broadcast(ChatUtils.centerText("&f&l2nd: &f" + top.get(1).getName()));
-
-            if(top.size() >= 3) {
-                broadcast(ChatUtils.centerText("&c&l3rd: &f" + top.get(2).getName()));
-            }
-            else {
-                broadcast(ChatUtils.centerText("&c&l3rd: &fNone"));
-            }
+            broadcast(ChatUtils.centerText("&6&l1st: &f" + placement(top, 0)));
+            broadcast(ChatUtils.centerText("&f&l2nd: &f" + placement(top, 1)));
+            broadcast(ChatUtils.centerText("&c&l3rd: &f" + placement(top, 2)));
             broadcast("");
-            broadcast(ChatUtils.centerText("<aqua>Bracket: <white><click:open_url:'https://www.challonge.com/" + tournament.getUrl() + "'>https://challonge.com/" + tournament.getUrl() + "</click>"));
+            if(bracket.url() != null) {
+                broadcast(ChatUtils.centerText("<aqua>Bracket: <white><click:open_url:'" + bracket.url() + "'>" + bracket.url() + "</click>"));
+            }
             broadcast("&8&m+-----------------------***-----------------------+");
         });
 
@@ -502,7 +448,29 @@ public class DuelEvent {
         }, 200);
     }
 
-    public Tournament tournament() {
-        return tournament;
+    /**
+     * Get the journal the tournament's results are written to.
+     * @return Result journal.
+     */
+    public ResultJournal journal() {
+        return journal;
+    }
+
+    /**
+     * Get the bracket of the tournament.
+     * @return Tournament bracket.
+     */
+    public BracketProvider bracket() {
+        return bracket;
+    }
+
+    /**
+     * Get the name of the team in a placement, for displaying.
+     * @param standings Final standings.
+     * @param index Placement, starting at 0.
+     * @return Team name, or None if there isn't one.
+     */
+    private String placement(List<EventTeam> standings, int index) {
+        return standings.size() > index ? standings.get(index).name() : "None";
     }
 }
\ No newline at end of file
@@ -39,6 +39,7 @@ import java.util.Set;
 public class DuelEventManager {
     private final TournamentsPlugin plugin;
     private Player host;
+    private String hostName;
     private EliminationType eventType;
     private DuelEvent activeEvent;
     private Kit kit;
@@ -46,6 +47,8 @@ public class DuelEventManager {
     private BestOf bestOf;
     private boolean hostPlaying = true;
     private TeamType teamSize = TeamType.ONE_V_ONE;
+    private final RatingTable ratingTable;
+    private final EventCheckpoint checkpoint;
 
     /**
      * Creates the Duel Event Manager.
@@ -53,6 +56,8 @@ public class DuelEventManager {
      */
     public DuelEventManager(final TournamentsPlugin plugin) {
         this.plugin = plugin;
+        this.ratingTable = new RatingTable(plugin);
+        this.checkpoint = new EventCheckpoint(plugin);
 
         // Reset the event data
         reset();
@@ -90,6 +95,22 @@ public class DuelEventManager {
         this.bestOf = bestOf;
     }
 
+    /**
+     * Get the checkpoint the active event is saved to.
+     * @return Event checkpoint.
+     */
+    public EventCheckpoint checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Get the table of player ratings, used to balance teams.
+     * @return Rating table.
+     */
+    public RatingTable ratingTable() {
+        return ratingTable;
+    }
+
     /**
      * Creates a new event using the existing settings.
      */
@@ -97,6 +118,37 @@ public class DuelEventManager {
         activeEvent = new DuelEvent(plugin);
     }
 
+    /**
+     * Resumes the event that was running when the server stopped, if there was one.
+     * Must be called once arenas are loaded.
+     */
+    public void resume() {
+        EventCheckpoint.Checkpoint saved = checkpoint.load();
+
+        if(saved == null) {
+            return;
+        }
+
+        Kit savedKit = plugin.kitManager().kit(saved.kit());
+        if(savedKit == null) {
+            plugin.getLogger().warning("Could not resume the tournament, its kit " + saved.kit() + " no longer exists.");
+            checkpoint.delete();
+            return;
+        }
+
+        // The host can't be online this early, so only their name is kept for displaying.
+        host = null;
+        hostName = saved.hostName();
+        kit = savedKit;
+        eventType = saved.eventType();
+        bestOf = saved.bestOf();
+        teamSize = saved.teamSize();
+        hostPlaying = saved.hostPlaying();
+
+        plugin.getLogger().info("Resuming " + hostName + "'s " + kit.name() + " tournament.");
+        activeEvent = new DuelEvent(plugin, saved);
+    }
+
     /**
      * Get the current event status.
      * @return current event status.
@@ -144,6 +196,16 @@ public class DuelEventManager {
      */
     public void host(Player host) {
         this.host = host;
+        this.hostName = host == null ? null : host.getName();
+    }
+
+    /**
+     * Get the name of the current host.
+     * Kept when the host is offline, like after an event is resumed.
+     * @return current host's name.
+     */
+    public String hostName() {
+        return hostName;
     }
 
     public boolean hostPlaying() {
@@ -195,7 +257,11 @@ public class DuelEventManager {
         eventType = EliminationType.NONE;
         eventStatus = EventStatus.NONE;
         host = null;
+        hostName = null;
         kit = null;
+
+        // Pooled worlds are only needed while an event is running.
+        plugin.getServer().getScheduler().runTask(plugin, () -> plugin.gameManager().worldPool().clear());
     }
 
     public TeamType teamSize() {
@@ -0,0 +1,244 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament;
+
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketMatch;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketProvider;
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Snapshot of the running event, stored in event.yml, so an event can be resumed after a crash or restart.
+ * Holds the event settings, the teams in seed order, and the result of every decided match.
+ * Everything else about the bracket is rebuilt from those, so the file stays small no matter how far the event is.
+ * Results that aren't in the snapshot yet are kept by the {@link ResultJournal}.
+ */
+public class EventCheckpoint {
+    private final TournamentsPlugin plugin;
+    private final File file;
+    private String lastSaved;
+
+    /**
+     * Creates the checkpoint.
+     * @param plugin Instance of the plugin.
+     */
+    public EventCheckpoint(final TournamentsPlugin plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "event.yml");
+    }
+
+    /**
+     * Writes a snapshot of the event, if anything changed since the last one.
+     * Written next to the file, forced to the disk and moved over it, so a crash never leaves it half written.
+     * @param eventUUID Event the snapshot is for.
+     * @param teams Teams in the event, ordered by seed.
+     * @param bracket Bracket of the event.
+     * @return Whether the snapshot on disk is up to date.
+     */
+    public synchronized boolean save(UUID eventUUID, List<EventTeam> teams, BracketProvider bracket) {
+        DuelEventManager duelEventManager = plugin.duelEventManager();
+
+        YamlConfiguration configuration = new YamlConfiguration();
+        configuration.set("event", eventUUID.toString());
+        configuration.set("host", duelEventManager.hostName());
+        configuration.set("kit", duelEventManager.kit().id());
+        configuration.set("type", duelEventManager.eventType().name());
+        configuration.set("best-of", duelEventManager.bestOf().name());
+        configuration.set("team-size", duelEventManager.teamSize().name());
+        configuration.set("host-playing", duelEventManager.hostPlaying());
+        configuration.set("url", bracket.url());
+
+        for(int seed = 0; seed < teams.size(); seed++) {
+            EventTeam team = teams.get(seed);
+            ConfigurationSection section = configuration.createSection("teams." + seed);
+            section.set("name", team.name());
+            section.set("players", team.playerUUIDs().stream().map(UUID::toString).toList());
+            section.set("challonge-id", team.challongeID());
+        }
+
+        // Each result is stored as "match winnerSeed winnerScore loserScore forfeited".
+        // Matches that were being played aren't stored, since their games don't survive a restart.
+        List<String> results = new ArrayList<>();
+        for(BracketMatch match : bracket.matches()) {
+            if(match.state() != BracketMatch.State.COMPLETE || match.bye()) {
+                continue;
+            }
+
+            String[] scores = match.scores().split("-");
+            boolean firstWon = match.winner().equals(match.team1());
+            String winnerScore = firstWon ? scores[0] : scores[1];
+            String loserScore = firstWon ? scores[1] : scores[0];
+
+            results.add(match.id() + " " + teams.indexOf(match.winner()) + " " + winnerScore + " " + loserScore + " " + match.forfeited());
+        }
+        configuration.set("results", results);
+
+        String contents = configuration.saveToString();
+        if(contents.equals(lastSaved)) {
+            return true;
+        }
+
+        try {
+            file.getParentFile().mkdirs();
+            File temporary = new File(file.getParentFile(), file.getName() + ".tmp");
+            try(FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8));
+                while(buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastSaved = contents;
+            return true;
+        }
+        catch (IOException exception) {
+            plugin.getLogger().warning("Could not save the event checkpoint: " + exception.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Loads the snapshot of an unfinished event.
+     * A snapshot that can't be read is moved to event.yml.old, so it isn't tried again.
+     * @return The snapshot, or null if there is no unfinished event.
+     */
+    public synchronized Checkpoint load() {
+        if(!file.exists()) {
+            return null;
+        }
+
+        try {
+            YamlConfiguration configuration = YamlConfiguration.loadConfiguration(file);
+
+            List<SavedTeam> teams = new ArrayList<>();
+            ConfigurationSection teamsSection = configuration.getConfigurationSection("teams");
+            for(int seed = 0; teamsSection != null && teamsSection.isConfigurationSection(String.valueOf(seed)); seed++) {
+                ConfigurationSection section = teamsSection.getConfigurationSection(String.valueOf(seed));
+
+                List<UUID> players = new ArrayList<>();
+                section.getStringList("players").forEach(player -> players.add(UUID.fromString(player)));
+                Long challongeID = section.contains("challonge-id") ? section.getLong("challonge-id") : null;
+
+                teams.add(new SavedTeam(section.getString("name"), players, challongeID));
+            }
+
+            List<SavedResult> results = new ArrayList<>();
+            for(String line : configuration.getStringList("results")) {
+                String[] parts = line.split(" ");
+                results.add(new SavedResult(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Boolean.parseBoolean(parts[4])));
+            }
+
+            return new Checkpoint(
+                    UUID.fromString(configuration.getString("event")),
+                    configuration.getString("host"),
+                    configuration.getString("kit"),
+                    EliminationType.valueOf(configuration.getString("type")),
+                    BestOf.valueOf(configuration.getString("best-of")),
+                    TeamType.valueOf(configuration.getString("team-size")),
+                    configuration.getBoolean("host-playing", true),
+                    configuration.getString("url"),
+                    teams,
+                    results);
+        }
+        catch (RuntimeException exception) {
+            plugin.getLogger().severe("Could not read the event checkpoint, the event will not be resumed: " + exception);
+
+            try {
+                Files.move(file.toPath(), new File(plugin.getDataFolder(), "event.yml.old").toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (IOException moveException) {
+                plugin.getLogger().warning("Could not move the event checkpoint aside: " + moveException.getMessage());
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the snapshot, once the event is over.
+     */
+    public synchronized void delete() {
+        lastSaved = null;
+
+        try {
+            Files.deleteIfExists(file.toPath());
+        }
+        catch (IOException exception) {
+            plugin.getLogger().warning("Could not delete the event checkpoint: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * The saved state of an unfinished event.
+     * @param uuid Event the snapshot is for.
+     * @param hostName Name of the host.
+     * @param kit Id of the kit.
+     * @param eventType Elimination type of the bracket.
+     * @param bestOf Games played per match.
+     * @param teamSize Team size of the event.
+     * @param hostPlaying Whether the host is playing.
+     * @param url Link to the bracket, or null if it had none.
+     * @param teams Teams, ordered by seed.
+     * @param results Results of every decided match.
+     */
+    public record Checkpoint(UUID uuid, String hostName, String kit, EliminationType eventType, BestOf bestOf, TeamType teamSize,
+                             boolean hostPlaying, String url, List<SavedTeam> teams, List<SavedResult> results) {
+    }
+
+    /**
+     * A team of a saved event.
+     * @param name Name of the team.
+     * @param players UUIDs of the team's players.
+     * @param challongeID Id of the team on Challonge, or null if it has none.
+     */
+    public record SavedTeam(String name, List<UUID> players, Long challongeID) {
+    }
+
+    /**
+     * A decided match of a saved event.
+     * @param match Id of the match.
+     * @param winner Seed of the winning team, starting at 0.
+     * @param winnerScore Rounds won by the winner.
+     * @param loserScore Rounds won by the loser.
+     * @param forfeited Whether the loser forfeited.
+     */
+    public record SavedResult(int match, int winner, int winnerScore, int loserScore, boolean forfeited) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament;
+
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Elo ratings of every player that has played in a tournament, stored in ratings.yml.
+ * The whole table is kept in memory, so teams can be seeded without touching the disk.
+ */
+public class RatingTable {
+    /**
+     * Rating of a player that hasn't played yet.
+     */
+    public static final double DEFAULT_RATING = 1000;
+
+    private final TournamentsPlugin plugin;
+    private final File file;
+    private final double kFactor;
+    private final Map<UUID, Double> ratings = new ConcurrentHashMap<>();
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    /**
+     * Loads the rating table.
+     * @param plugin Instance of the plugin.
+     */
+    public RatingTable(final TournamentsPlugin plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "ratings.yml");
+        this.kFactor = Math.max(1, plugin.settingsManager().getConfig().getDouble("ratings.k-factor", 32));
+
+        YamlConfiguration configuration = YamlConfiguration.loadConfiguration(file);
+        for(String key : configuration.getKeys(false)) {
+            try {
+                ratings.put(UUID.fromString(key), configuration.getDouble(key, DEFAULT_RATING));
+            }
+            catch (IllegalArgumentException exception) {
+                plugin.getLogger().warning("Skipping invalid rating entry " + key + ".");
+            }
+        }
+    }
+
+    /**
+     * Get the rating of a player.
+     * @param uuid UUID of the player.
+     * @return Rating of the player.
+     */
+    public double rating(UUID uuid) {
+        return ratings.getOrDefault(uuid, DEFAULT_RATING);
+    }
+
+    /**
+     * Get the rating of a team, which is the average rating of its players.
+     * @param team Team to get the rating of.
+     * @return Rating of the team.
+     */
+    public double rating(EventTeam team) {
+        List<UUID> players = team.playerUUIDs();
+
+        if(players.isEmpty()) {
+            return DEFAULT_RATING;
+        }
+
+        double total = 0;
+        for(UUID player : players) {
+            total += rating(player);
+        }
+
+        return total / players.size();
+    }
+
+    /**
+     * Orders teams by seed, highest rated first.
+     * Teams with the same rating keep the order they were given in.
+     * @param teams Teams to seed.
+     * @return Teams in seed order.
+     */
+    public List<EventTeam> seed(Collection<EventTeam> teams) {
+        // Each team's rating is worked out once, rather than on every comparison.
+        Map<EventTeam, Double> teamRatings = new HashMap<>();
+        teams.forEach(team -> teamRatings.put(team, rating(team)));
+
+        List<EventTeam> seeded = new ArrayList<>(teams);
+        seeded.sort(Comparator.comparingDouble((EventTeam team) -> teamRatings.get(team)).reversed());
+        return seeded;
+    }
+
+    /**
+     * Updates the ratings of the players in a match.
+     * @param winner Team that won.
+     * @param loser Team that lost.
+     */
+    public void update(EventTeam winner, EventTeam loser) {
+        double winnerRating = rating(winner);
+        double loserRating = rating(loser);
+
+        // Every player moves by the same amount, based on how expected the result was.
+        double expected = 1 / (1 + Math.pow(10, (loserRating - winnerRating) / 400));
+        double change = kFactor * (1 - expected);
+
+        winner.playerUUIDs().forEach(player -> ratings.put(player, rating(player) + change));
+        loser.playerUUIDs().forEach(player -> ratings.put(player, rating(player) - change));
+        changed.set(true);
+    }
+
+    /**
+     * Writes the ratings to ratings.yml if they changed since the last save.
+     * Written next to the file and moved over it, so a crash never leaves it half written.
+     */
+    public void save() {
+        if(!changed.getAndSet(false)) {
+            return;
+        }
+
+        YamlConfiguration configuration = new YamlConfiguration();
+        ratings.forEach((uuid, rating) -> configuration.set(uuid.toString(), Math.round(rating * 100) / 100.0));
+
+        try {
+            File temporary = new File(file.getParentFile(), file.getName() + ".tmp");
+            Files.write(temporary.toPath(), configuration.saveToString().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException exception) {
+            changed.set(true);
+            plugin.getLogger().warning("Could not save ratings: " + exception.getMessage());
+        }
+    }
+}
\ No newline at end of file
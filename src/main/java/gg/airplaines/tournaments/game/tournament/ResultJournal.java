@@ -0,0 +1,364 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament;
+
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketMatch;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketProvider;
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Append-only journal of match results, written to disk before a result is accepted.
+ * A background thread reports journaled results to the bracket in batches,
+ * and only marks them done once the bracket they were reported to has been saved to disk.
+ * Results that were never marked done are replayed when the journal is opened for the same event again,
+ * so a finished duel is never lost to a restart or a Challonge outage.
+ * Each line is either "E uuid" (the event the journal is for), "R match winnerScore loserScore forfeited winner" or "D match".
+ */
+public class ResultJournal {
+    private final TournamentsPlugin plugin;
+    private final UUID eventUUID;
+    private final BracketProvider bracket;
+    private final BooleanSupplier persist;
+    private final Runnable reported;
+    private final File file;
+    private final List<Integer> unconfirmed = new ArrayList<>();
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Tournaments Result Journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private FileChannel channel;
+
+    /**
+     * Opens the journal of an event, keeping any results from it that were never reported.
+     * @param plugin Instance of the plugin.
+     * @param eventUUID Event the results are for.
+     * @param bracket Bracket the results are reported to.
+     * @param persist Saves the bracket to disk after each batch, returning whether it was saved.
+     * @param reported Runs after each batch of results is reported.
+     */
+    public ResultJournal(final TournamentsPlugin plugin, UUID eventUUID, BracketProvider bracket, BooleanSupplier persist, Runnable reported) {
+        this.plugin = plugin;
+        this.eventUUID = eventUUID;
+        this.bracket = bracket;
+        this.persist = persist;
+        this.reported = reported;
+        this.file = new File(plugin.getDataFolder(), "results.journal");
+
+        try {
+            load();
+            open();
+        }
+        catch (IOException exception) {
+            plugin.getLogger().severe("Could not open the result journal, results will only be kept in memory: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Writes a result to the journal and waits for it to reach the disk, then queues it to be reported.
+     * @param match Match the result is for.
+     * @param winner Team that won the match.
+     * @param winnerScore Games won by the winner.
+     * @param loserScore Games won by the loser.
+     * @param forfeited Whether the loser forfeited.
+     */
+    public void record(BracketMatch match, EventTeam winner, int winnerScore, int loserScore, boolean forfeited) {
+        Entry entry = new Entry(match.id(), winner.name(), winnerScore, loserScore, forfeited);
+
+        write(entry.toString());
+        pending.add(entry);
+        flush();
+    }
+
+    /**
+     * Queues the pending results to be reported to the bracket, if they aren't already.
+     */
+    public void flush() {
+        if(!flushQueued.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            flusher.execute(() -> {
+                flushQueued.set(false);
+                report();
+            });
+        }
+        catch (RejectedExecutionException exception) {
+            flushQueued.set(false);
+        }
+    }
+
+    /**
+     * Get the number of results that haven't been reported yet.
+     * @return Number of pending results.
+     */
+    public int pendingResults() {
+        return pending.size();
+    }
+
+    /**
+     * Stops reporting results and closes the journal.
+     * Results that haven't been reported stay in the file, to be replayed if the event is resumed.
+     * @param delete Whether to delete the journal if every result was reported.
+     */
+    public void close(boolean delete) {
+        // Waits without holding the lock, since the batch being reported needs it to mark its results done.
+        flusher.shutdown();
+
+        try {
+            if(!flusher.awaitTermination(5, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Result journal is still reporting results, closing it anyway. They will be replayed if the event is resumed.");
+            }
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized(this) {
+            try {
+                if(channel != null) {
+                    channel.close();
+                    channel = null;
+                }
+
+                if(delete && pending.isEmpty() && unconfirmed.isEmpty()) {
+                    Files.deleteIfExists(file.toPath());
+                }
+            }
+            catch (IOException exception) {
+                plugin.getLogger().warning("Could not close the result journal: " + exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reports every pending result to the bracket as one batch, then marks them done with a single write.
+     */
+    private void report() {
+        List<Entry> batch = new ArrayList<>();
+        Entry entry;
+        while(batch.size() < 64 && (entry = pending.poll()) != null) {
+            batch.add(entry);
+        }
+
+        if(batch.isEmpty()) {
+            return;
+        }
+
+        for(Entry result : batch) {
+            BracketMatch match = match(result.match());
+            EventTeam winner = match == null ? null : winner(match, result.winner());
+
+            if(match == null || winner == null) {
+                plugin.getLogger().warning("Dropping journaled result of match " + result.match() + " won by " + result.winner() + ", it is not in the bracket.");
+            }
+            else {
+                bracket.reportResult(match, winner, result.winnerScore(), result.loserScore(), result.forfeited());
+            }
+
+            unconfirmed.add(result.match());
+        }
+
+        // Results are only marked done once the bracket holding them is on disk, so a crash in between replays them.
+        if(persist.getAsBoolean()) {
+            StringBuilder done = new StringBuilder();
+            for(int match : unconfirmed) {
+                if(done.length() > 0) {
+                    done.append('\n');
+                }
+                done.append("D ").append(match);
+            }
+
+            write(done.toString());
+            unconfirmed.clear();
+        }
+        else {
+            plugin.getLogger().warning("Could not save the bracket, keeping " + unconfirmed.size() + " results in the journal to be replayed.");
+        }
+
+        reported.run();
+
+        // Picks up results recorded while this batch was being reported.
+        if(!pending.isEmpty()) {
+            flush();
+        }
+    }
+
+    private BracketMatch match(int id) {
+        for(BracketMatch match : bracket.matches()) {
+            if(match.id() == id) {
+                return match;
+            }
+        }
+
+        return null;
+    }
+
+    private EventTeam winner(BracketMatch match, String name) {
+        if(match.team1() != null && match.team1().name().equals(name)) {
+            return match.team1();
+        }
+
+        if(match.team2() != null && match.team2().name().equals(name)) {
+            return match.team2();
+        }
+
+        return null;
+    }
+
+    /**
+     * Appends lines to the journal, and forces them to the disk.
+     * @param lines Lines to write, separated by new lines.
+     */
+    private synchronized void write(String lines) {
+        if(channel == null) {
+            return;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((lines + "\n").getBytes(StandardCharsets.UTF_8));
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        catch (IOException exception) {
+            plugin.getLogger().severe("Could not write to the result journal: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Reads the results left in the journal by the last run.
+     * Unreported results of this event are queued again, while ones from another event are logged and archived.
+     * @throws IOException If the journal could not be read.
+     */
+    private void load() throws IOException {
+        if(!file.exists()) {
+            return;
+        }
+
+        UUID journalUUID = null;
+        Map<Integer, Entry> unreported = new LinkedHashMap<>();
+
+        for(String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            // A crash can leave the last line half written.
+            try {
+                if(line.startsWith("E ")) {
+                    journalUUID = UUID.fromString(line.substring(2));
+                }
+                else if(line.startsWith("R ")) {
+                    Entry entry = Entry.fromString(line);
+                    unreported.put(entry.match(), entry);
+                }
+                else if(line.startsWith("D ")) {
+                    unreported.remove(Integer.parseInt(line.substring(2)));
+                }
+            }
+            catch (IllegalArgumentException | IndexOutOfBoundsException exception) {
+                plugin.getLogger().warning("Skipping unreadable result journal line: " + line);
+            }
+        }
+
+        if(eventUUID.equals(journalUUID)) {
+            pending.addAll(unreported.values());
+            return;
+        }
+
+        if(!unreported.isEmpty()) {
+            for(Entry entry : unreported.values()) {
+                plugin.getLogger().warning("Result of match " + entry.match() + " from a previous tournament was never reported: " + entry.winner() + " won " + entry.winnerScore() + "-" + entry.loserScore() + ".");
+            }
+
+            Files.move(file.toPath(), new File(plugin.getDataFolder(), "results.journal.old").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Starts a fresh journal for the event, holding only the results that are still pending.
+     * @throws IOException If the journal could not be written.
+     */
+    private void open() throws IOException {
+        StringBuilder lines = new StringBuilder("E ").append(eventUUID).append('\n');
+        pending.forEach(entry -> lines.append(entry).append('\n'));
+
+        // Written next to the journal and moved over it, so a crash never leaves it half written.
+        file.getParentFile().mkdirs();
+        File temporary = new File(file.getParentFile(), file.getName() + ".tmp");
+        try(FileChannel temporaryChannel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            temporaryChannel.write(ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8)));
+            temporaryChannel.force(true);
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * A journaled match result.
+     * @param match Id of the match in the bracket.
+     * @param winner Name of the winning team.
+     * @param winnerScore Games won by the winner.
+     * @param loserScore Games won by the loser.
+     * @param forfeited Whether the loser forfeited.
+     */
+    private record Entry(int match, String winner, int winnerScore, int loserScore, boolean forfeited) {
+
+        /**
+         * Reads an entry from a journal line.
+         * @param line Line starting with "R ".
+         * @return Entry of the line.
+         */
+        private static Entry fromString(String line) {
+            String[] parts = line.split(" ", 6);
+            return new Entry(Integer.parseInt(parts[1]), parts[5], Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Boolean.parseBoolean(parts[4]));
+        }
+
+        @Override
+        public String toString() {
+            return "R " + match + " " + winnerScore + " " + loserScore + " " + forfeited + " " + winner;
+        }
+    }
+}
\ No newline at end of file
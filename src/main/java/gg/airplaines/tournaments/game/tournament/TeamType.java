@@ -28,22 +28,25 @@ package gg.airplaines.tournaments.game.tournament;
  * Represents the size of a team, and how the team is picked.
  */
 public enum TeamType {
-    ONE_V_ONE("1v1", 2),
-    TWO_V_TWO_RANDOM("2v2 Random", 3),
-    THREE_V_THREE_RANDOM("3v3 Random", 4),
-    NONE("None", 0);
+    ONE_V_ONE("1v1", 2, 1),
+    TWO_V_TWO_RANDOM("2v2 Random", 3, 2),
+    THREE_V_THREE_RANDOM("3v3 Random", 4, 3),
+    NONE("None", 0, 0);
 
     private final String displayName;
     private final int minimumPlayers;
+    private final int playersPerTeam;
 
     /**
      * Creates the team size.
      * @param displayName The name of the team size.
      * @param minimumPlayers Minimum number of players.
+     * @param playersPerTeam Number of players in a full team.
      */
-    TeamType(String displayName, int minimumPlayers) {
+    TeamType(String displayName, int minimumPlayers, int playersPerTeam) {
         this.displayName = displayName;
         this.minimumPlayers = minimumPlayers;
+        this.playersPerTeam = playersPerTeam;
     }
 
     /**
@@ -61,4 +64,12 @@ public enum TeamType {
     public int minimumPlayers() {
         return minimumPlayers;
     }
+
+    /**
+     * Gets the number of players in a full team.
+     * @return Players per team.
+     */
+    public int playersPerTeam() {
+        return playersPerTeam;
+    }
 }
\ No newline at end of file
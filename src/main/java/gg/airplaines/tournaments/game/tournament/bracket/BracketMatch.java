@@ -0,0 +1,289 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.bracket;
+
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+
+/**
+ * Represents a single match of a tournament bracket.
+ * Matches are only changed by the bracket that created them.
+ */
+public class BracketMatch {
+    private final int id;
+    private final Stage stage;
+    private final int round;
+    private final EventTeam[] teams = new EventTeam[2];
+    private final boolean[] filled = new boolean[2];
+    private BracketMatch winnerNext;
+    private int winnerSlot;
+    private BracketMatch loserNext;
+    private int loserSlot;
+    private State state = State.PENDING;
+    private EventTeam winner;
+    private EventTeam loser;
+    private String scores;
+    private boolean forfeited = false;
+    private boolean bye = false;
+
+    /**
+     * Creates the match.
+     * @param id Id of the match, unique within its bracket.
+     * @param stage Part of the bracket the match is in.
+     * @param round Round of that part of the bracket, starting at 1.
+     */
+    BracketMatch(int id, Stage stage, int round) {
+        this.id = id;
+        this.stage = stage;
+        this.round = round;
+    }
+
+    /**
+     * Get the id of the match.
+     * @return Match id.
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Get the part of the bracket the match is in.
+     * @return Match stage.
+     */
+    public Stage stage() {
+        return stage;
+    }
+
+    /**
+     * Get the round of the match, within its stage.
+     * @return Match round.
+     */
+    public int round() {
+        return round;
+    }
+
+    /**
+     * Get the current state of the match.
+     * @return Match state.
+     */
+    public State state() {
+        return state;
+    }
+
+    /**
+     * Get the first team of the match.
+     * Null if it isn't known yet, or if the slot is empty.
+     * @return First team.
+     */
+    public EventTeam team1() {
+        return teams[0];
+    }
+
+    /**
+     * Get the second team of the match.
+     * Null if it isn't known yet, or if the slot is empty.
+     * @return Second team.
+     */
+    public EventTeam team2() {
+        return teams[1];
+    }
+
+    /**
+     * Get the winner of the match.
+     * Null if the match isn't complete.
+     * @return Winning team.
+     */
+    public EventTeam winner() {
+        return winner;
+    }
+
+    /**
+     * Get the loser of the match.
+     * Null if the match isn't complete, or if it was a bye.
+     * @return Losing team.
+     */
+    public EventTeam loser() {
+        return loser;
+    }
+
+    /**
+     * Get the score of the match, in the form "team1-team2".
+     * Null if the match was never played.
+     * @return Match scores.
+     */
+    public String scores() {
+        return scores;
+    }
+
+    /**
+     * Get if the match was won because the other team didn't show up.
+     * @return Whether the match was forfeited.
+     */
+    public boolean forfeited() {
+        return forfeited;
+    }
+
+    /**
+     * Get if the match was skipped because a slot was empty.
+     * @return Whether the match was a bye.
+     */
+    public boolean bye() {
+        return bye;
+    }
+
+    /**
+     * Check if a team is playing in the match.
+     * @param team Team to check.
+     * @return Whether the team is in the match.
+     */
+    public boolean hasTeam(EventTeam team) {
+        return team != null && (team.equals(teams[0]) || team.equals(teams[1]));
+    }
+
+    /**
+     * Get the name of the match, for displaying.
+     * @return Match name.
+     */
+    public String displayName() {
+        return switch (stage) {
+            case WINNERS -> "Round " + round;
+            case LOSERS -> "Losers Round " + round;
+            case GRAND_FINAL -> round == 1 ? "Grand Final" : "Grand Final Reset";
+            case THIRD_PLACE -> "Third Place Match";
+        };
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+
+    EventTeam team(int slot) {
+        return teams[slot];
+    }
+
+    BracketMatch winnerNext() {
+        return winnerNext;
+    }
+
+    int winnerSlot() {
+        return winnerSlot;
+    }
+
+    BracketMatch loserNext() {
+        return loserNext;
+    }
+
+    int loserSlot() {
+        return loserSlot;
+    }
+
+    void winnerNext(BracketMatch match, int slot) {
+        this.winnerNext = match;
+        this.winnerSlot = slot;
+    }
+
+    void loserNext(BracketMatch match, int slot) {
+        this.loserNext = match;
+        this.loserSlot = slot;
+    }
+
+    /**
+     * Sets the team of a slot. A null team means the slot stays empty.
+     * @param slot Slot to fill.
+     * @param team Team in that slot.
+     */
+    void fill(int slot, EventTeam team) {
+        teams[slot] = team;
+        filled[slot] = true;
+    }
+
+    /**
+     * Check if both slots of the match have been decided.
+     * @return Whether both slots are filled.
+     */
+    boolean decided() {
+        return filled[0] && filled[1];
+    }
+
+    void state(State state) {
+        this.state = state;
+    }
+
+    void complete(EventTeam winner, EventTeam loser, String scores, boolean forfeited, boolean bye) {
+        this.winner = winner;
+        this.loser = loser;
+        this.scores = scores;
+        this.forfeited = forfeited;
+        this.bye = bye;
+        this.state = State.COMPLETE;
+    }
+
+    /**
+     * Represents the progress of a match.
+     */
+    public enum State {
+        /**
+         * Waiting on the matches before it.
+         */
+        PENDING,
+
+        /**
+         * Both teams are known, and the match can be started.
+         */
+        OPEN,
+
+        /**
+         * The match is being played.
+         */
+        UNDERWAY,
+
+        /**
+         * The match has a winner.
+         */
+        COMPLETE
+    }
+
+    /**
+     * Represents the part of the bracket a match is in.
+     */
+    public enum Stage {
+        /**
+         * The main bracket. In single elimination, every match except the third place match.
+         */
+        WINNERS,
+
+        /**
+         * Teams with one loss in double elimination.
+         */
+        LOSERS,
+
+        /**
+         * The winners' champion against the losers' champion, and its reset.
+         */
+        GRAND_FINAL,
+
+        /**
+         * The losers of the semi-finals in single elimination.
+         */
+        THIRD_PLACE
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.bracket;
+
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+
+import java.util.List;
+
+/**
+ * Runs the bracket of a tournament.
+ * Decides which matches can be played, and advances teams as results come in.
+ */
+public interface BracketProvider {
+    /**
+     * Creates the bracket.
+     * @param teams Teams in the tournament, ordered by seed.
+     */
+    void create(List<EventTeam> teams);
+
+    /**
+     * Rebuilds the bracket of a tournament that was interrupted by a restart.
+     * Matches that were being played are opened again, to be replayed.
+     * @param teams Teams in the tournament, ordered by seed.
+     * @param results Results that were recorded before the restart.
+     * @param url Link the bracket had, or null if it had none.
+     */
+    void resume(List<EventTeam> teams, List<BracketResult> results, String url);
+
+    /**
+     * Get every match of the bracket, including ones that won't be played.
+     * @return All matches.
+     */
+    List<BracketMatch> matches();
+
+    /**
+     * Get the matches that have both teams, and haven't been started.
+     * @return Open matches.
+     */
+    List<BracketMatch> openMatches();
+
+    /**
+     * Marks a match as being played.
+     * @param match Match that was started.
+     */
+    void markUnderway(BracketMatch match);
+
+    /**
+     * Marks a match as no longer being played, so it can be started again.
+     * Used when the game for the match couldn't be created.
+     * @param match Match that was stopped.
+     */
+    void unmarkUnderway(BracketMatch match);
+
+    /**
+     * Records the result of a match, and advances both teams.
+     * @param match Match that ended.
+     * @param winner Team that won.
+     * @param winnerScore Rounds won by the winner.
+     * @param loserScore Rounds won by the loser.
+     * @param forfeited Whether the loser forfeited.
+     * @return Whether the result was recorded. False if the match already had a result.
+     */
+    boolean reportResult(BracketMatch match, EventTeam winner, int winnerScore, int loserScore, boolean forfeited);
+
+    /**
+     * Check if every match of the bracket is complete.
+     * @return Whether the tournament is over.
+     */
+    boolean isComplete();
+
+    /**
+     * Get the final standings of the tournament, from first to last.
+     * @return Teams in order of placement.
+     */
+    List<EventTeam> standings();
+
+    /**
+     * Finishes the tournament, once every match is complete.
+     */
+    void finish();
+
+    /**
+     * Get a link to view the bracket.
+     * Null if the bracket can't be viewed online.
+     * @return Bracket link.
+     */
+    String url();
+}
\ No newline at end of file
@@ -0,0 +1,478 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.bracket;
+
+import at.stefangeyer.challonge.Challonge;
+import at.stefangeyer.challonge.exception.DataAccessException;
+import at.stefangeyer.challonge.model.Match;
+import at.stefangeyer.challonge.model.Tournament;
+import at.stefangeyer.challonge.model.enumeration.TournamentType;
+import at.stefangeyer.challonge.model.query.MatchQuery;
+import at.stefangeyer.challonge.model.query.ParticipantQuery;
+import at.stefangeyer.challonge.model.query.TournamentQuery;
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.tournament.challonge.ChallongeClient;
+import gg.airplaines.tournaments.game.tournament.challonge.ChallongeMirror;
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs the bracket locally, and mirrors it to Challonge so it can be viewed online.
+ * Every decision is made by the local bracket, so the tournament keeps going when Challonge is slow or down.
+ * Calls for different matches are made concurrently, limited by the client's rate limit.
+ * Calls for the same match are made in order, and a match's first call waits for every result reported before it,
+ * since Challonge only fills in a match once the matches before it are decided.
+ */
+public class ChallongeBracketProvider implements BracketProvider {
+    /**
+     * Seconds to wait for the tournament to be created on Challonge before starting without its link.
+     */
+    private static final int SETUP_TIMEOUT = 30;
+
+    private final TournamentsPlugin plugin;
+    private final BracketProvider bracket;
+    private final ChallongeClient client;
+    private final Challonge challonge;
+    private final ChallongeMirror mirror = new ChallongeMirror();
+    private final Map<BracketMatch, Long> challongeMatches = new ConcurrentHashMap<>();
+    private final Map<BracketMatch, CompletableFuture<Void>> matchCalls = new HashMap<>();
+    private final Set<Integer> diverged = ConcurrentHashMap.newKeySet();
+    private volatile Tournament tournament;
+    private CompletableFuture<Void> results = CompletableFuture.completedFuture(null);
+    private CompletableFuture<Void> refresh;
+
+    /**
+     * Creates the Challonge mirror.
+     * @param plugin Instance of the plugin.
+     * @param bracket Bracket that makes every decision.
+     */
+    public ChallongeBracketProvider(final TournamentsPlugin plugin, BracketProvider bracket) {
+        this.plugin = plugin;
+        this.bracket = bracket;
+        this.client = plugin.challongeClient();
+        this.challonge = client.challonge();
+    }
+
+    /**
+     * Creates the local bracket, then creates and starts the same tournament on Challonge.
+     * If Challonge can't be reached, the tournament is run without it.
+     * Waits a limited time for Challonge, so this should never be called on the main thread.
+     * @param teams Teams in the tournament, ordered by seed.
+     */
+    @Override
+    public void create(List<EventTeam> teams) {
+        bracket.create(teams);
+
+        TournamentQuery.TournamentQueryBuilder builder = TournamentQuery.builder();
+        builder.name("airplanes.gg - " + plugin.duelEventManager().hostName() + "'s " + plugin.duelEventManager().kit().name() + " Tournament")
+                .gameName("Minecraft")
+                .description(plugin.duelEventManager().kit().name() + " tournament on airplanes.gg. Join us at play.airplanes.gg")
+                .holdThirdPlaceMatch(true);
+
+        // Sets the tournament type of the tournament.
+        switch (plugin.duelEventManager().eventType()) {
+            case SINGLE_ELIMINATION -> builder.tournamentType(TournamentType.SINGLE_ELIMINATION);
+            case DOUBLE_ELIMINATION -> builder.tournamentType(TournamentType.DOUBLE_ELIMINATION);
+        }
+        TournamentQuery tournamentQuery = builder.build();
+
+        // Participants are given their seeds explicitly, so Challonge seeds them the same way as the local bracket.
+        List<ParticipantQuery> queries = new ArrayList<>();
+        for(int seed = 1; seed <= teams.size(); seed++) {
+            queries.add(ParticipantQuery.builder().name(teams.get(seed - 1).name()).seed(seed).build());
+        }
+
+        CompletableFuture<Void> setup = client.call("create the tournament", () -> challonge.createTournament(tournamentQuery))
+                .thenCompose(created -> client.call("add participants", () -> challonge.bulkAddParticipants(created, queries)).thenApply(participants -> {
+                    participants.forEach(participant -> teams.stream()
+                            .filter(team -> team.name().equals(participant.getName()))
+                            .forEach(team -> team.challongeID(participant.getId())));
+                    teams.stream()
+                            .filter(team -> team.challongeID() == null)
+                            .forEach(team -> plugin.getLogger().warning("Challonge did not add " + team.name() + " as a participant, their matches won't be mirrored."));
+                    return created;
+                }))
+                .thenCompose(created -> client.call("start the tournament", () -> challonge.startTournament(created)).thenApply(started -> created))
+                .thenCompose(created -> {
+                    tournament = created;
+                    return refreshMatches();
+                });
+
+        awaitSetup(setup, "create");
+    }
+
+    /**
+     * Rebuilds the local bracket, then finds the tournament on Challonge again by its link.
+     * Results that didn't reach Challonge before the restart are sent again, so the matches after them get filled in.
+     * Waits a limited time for Challonge, so this should never be called on the main thread.
+     * @param teams Teams in the tournament, ordered by seed.
+     * @param results Results that were recorded before the restart.
+     * @param url Link the bracket had, or null if it was never created on Challonge.
+     */
+    @Override
+    public void resume(List<EventTeam> teams, List<BracketResult> results, String url) {
+        bracket.resume(teams, results, url);
+
+        if(url == null) {
+            return;
+        }
+
+        String slug = url.substring(url.lastIndexOf('/') + 1);
+        CompletableFuture<Void> setup = client.call("fetch the tournament", () -> challonge.getTournament(slug))
+                .thenCompose(found -> {
+                    tournament = found;
+                    return refreshMatches();
+                })
+                .thenRun(() -> resend(results));
+
+        awaitSetup(setup, "resume");
+    }
+
+    @Override
+    public List<BracketMatch> matches() {
+        return bracket.matches();
+    }
+
+    @Override
+    public List<BracketMatch> openMatches() {
+        return bracket.openMatches();
+    }
+
+    @Override
+    public void markUnderway(BracketMatch match) {
+        bracket.markUnderway(match);
+        mirror(match, challongeMatch -> challonge.markMatchAsUnderway(challongeMatch));
+    }
+
+    @Override
+    public void unmarkUnderway(BracketMatch match) {
+        bracket.unmarkUnderway(match);
+        mirror(match, challongeMatch -> challonge.unmarkMatchAsUnderway(challongeMatch));
+    }
+
+    @Override
+    public boolean reportResult(BracketMatch match, EventTeam winner, int winnerScore, int loserScore, boolean forfeited) {
+        if(!bracket.reportResult(match, winner, winnerScore, loserScore, forfeited)) {
+            return false;
+        }
+
+        mirrorResult(match, winner, winnerScore, loserScore);
+        return true;
+    }
+
+    /**
+     * Queues a result to be sent to Challonge.
+     * @param match Match that ended.
+     * @param winner Team that won.
+     * @param winnerScore Rounds won by the winner.
+     * @param loserScore Rounds won by the loser.
+     */
+    private void mirrorResult(BracketMatch match, EventTeam winner, int winnerScore, int loserScore) {
+        CompletableFuture<Void> mirrored = mirror(match, challongeMatch -> {
+            // Challonge orders scores by its own player slots, which may not match the local bracket.
+            String scores = winner.challongeID().equals(challongeMatch.getPlayer1Id()) ? winnerScore + "-" + loserScore : loserScore + "-" + winnerScore;
+
+            MatchQuery query = MatchQuery.builder()
+                    .winnerId(winner.challongeID())
+                    .scoresCsv(scores)
+                    .build();
+            return challonge.updateMatch(challongeMatch, query);
+        });
+
+        // Matches after this one wait for its result to reach Challonge.
+        synchronized(this) {
+            results = CompletableFuture.allOf(results, mirrored);
+        }
+    }
+
+    /**
+     * Sends the results from before a restart that Challonge doesn't have yet.
+     * Goes through them in match order, pairing each with a decided Challonge match between the same teams if there is one,
+     * so teams that meet twice in double elimination are told apart.
+     * @param results Results that were recorded before the restart.
+     */
+    private void resend(List<BracketResult> results) {
+        Map<Integer, BracketMatch> matches = new HashMap<>();
+        for(BracketMatch match : bracket.matches()) {
+            matches.put(match.id(), match);
+        }
+
+        List<BracketResult> ordered = new ArrayList<>(results);
+        ordered.sort(Comparator.comparingInt(BracketResult::match));
+
+        Set<Long> decided = new HashSet<>();
+        int resent = 0;
+
+        for(BracketResult result : ordered) {
+            BracketMatch match = matches.get(result.match());
+
+            // Results that weren't replayed, and teams without a participant, were never mirrored.
+            if(match == null || match.bye() || match.state() != BracketMatch.State.COMPLETE || match.team1().challongeID() == null || match.team2().challongeID() == null) {
+                continue;
+            }
+
+            Match found = mirror.decided(match.team1().challongeID(), match.team2().challongeID(), decided);
+            if(found != null) {
+                decided.add(found.getId());
+                challongeMatches.put(match, found.getId());
+                continue;
+            }
+
+            mirrorResult(match, result.winner(), result.winnerScore(), result.loserScore());
+            resent++;
+        }
+
+        if(resent > 0) {
+            plugin.getLogger().info("Sending " + resent + " results to Challonge that didn't reach it before the restart.");
+        }
+    }
+
+    @Override
+    public boolean isComplete() {
+        return bracket.isComplete();
+    }
+
+    @Override
+    public List<EventTeam> standings() {
+        return bracket.standings();
+    }
+
+    @Override
+    public void finish() {
+        bracket.finish();
+
+        // Finalizes once every call has been made.
+        CompletableFuture<Void> previous;
+        synchronized(this) {
+            List<CompletableFuture<Void>> pending = new ArrayList<>(matchCalls.values());
+            pending.add(results);
+            previous = CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]));
+        }
+
+        chain(previous, () -> {
+            if(tournament == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            return client.call("finalize the tournament", () -> challonge.finalizeTournament(tournament));
+        });
+    }
+
+    @Override
+    public String url() {
+        return tournament == null ? null : "https://challonge.com/" + tournament.getUrl();
+    }
+
+    /**
+     * Makes match updates wait for the tournament to be set up, and waits a limited time for it.
+     * @param setup Future of the setup.
+     * @param action What the setup does, for logging.
+     */
+    private void awaitSetup(CompletableFuture<Void> setup, String action) {
+        synchronized(this) {
+            results = chain(results, () -> setup);
+        }
+
+        try {
+            setup.get(SETUP_TIMEOUT, TimeUnit.SECONDS);
+        }
+        catch (ExecutionException exception) {
+            plugin.getLogger().warning("Could not " + action + " the tournament on Challonge, running the bracket locally: " + exception.getCause().getMessage());
+        }
+        catch (TimeoutException exception) {
+            plugin.getLogger().warning("Challonge is taking too long to " + action + " the tournament, starting without it.");
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a Challonge call for a match.
+     * The Challonge match is found by the teams playing in it, since Challonge has its own match ids.
+     * @param match Local match the call is for.
+     * @param call Call to make with the Challonge match.
+     * @return Future of the match's calls after this one.
+     */
+    private synchronized CompletableFuture<Void> mirror(BracketMatch match, MatchCall call) {
+        CompletableFuture<Void> next = chain(matchCalls.getOrDefault(match, results), () -> {
+            if(tournament == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            // Teams that were never added to Challonge can't be found there.
+            for(EventTeam team : List.of(match.team1(), match.team2())) {
+                if(team.challongeID() == null) {
+                    diverge(match, team.name() + " has no Challonge participant");
+                    return CompletableFuture.completedFuture(null);
+                }
+            }
+
+            return challongeMatch(match).thenCompose(challongeMatch -> {
+                if(challongeMatch == null) {
+                    diverge(match, "Challonge has no open match between " + match.team1().name() + " and " + match.team2().name());
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                // Challonge returns the updated match, which keeps the mirror current without fetching it again.
+                return client.call("update match " + challongeMatch.getId(), () -> call.run(challongeMatch)).thenAccept(mirror::update);
+            });
+        });
+
+        matchCalls.put(match, next);
+        return next;
+    }
+
+    /**
+     * Records a match that couldn't be mirrored, so the online bracket is known to be out of date.
+     * Logged once per match.
+     * @param match Local match.
+     * @param reason Why it couldn't be mirrored.
+     */
+    private void diverge(BracketMatch match, String reason) {
+        if(diverged.add(match.id())) {
+            plugin.getLogger().warning("Could not mirror " + match.displayName() + " (match " + match.id() + ") to Challonge, " + reason + ". The online bracket is out of date.");
+        }
+    }
+
+    /**
+     * Get the number of matches that couldn't be mirrored to Challonge.
+     * When this isn't 0, the online bracket no longer matches the local one.
+     * @return Diverged matches.
+     */
+    public int divergedMatches() {
+        return diverged.size();
+    }
+
+    /**
+     * Chains a step after a future, to be started once the future is done.
+     * A step that fails is logged and doesn't stop the steps after it.
+     * @param previous Future to wait for.
+     * @param step Creates the step's future when it is started.
+     * @return Future of the step, which never fails.
+     */
+    private CompletableFuture<Void> chain(CompletableFuture<Void> previous, Supplier<CompletableFuture<?>> step) {
+        return previous.thenCompose(ignored -> {
+            try {
+                return step.get();
+            }
+            catch (RuntimeException exception) {
+                return CompletableFuture.failedFuture(exception);
+            }
+        }).handle((result, exception) -> {
+            if(exception != null) {
+                Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+                plugin.getLogger().warning("Challonge update failed: " + cause.getMessage());
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Finds the Challonge match played between the teams of a local match.
+     * Fetches the matches again if it isn't known yet, since Challonge fills in later rounds as results come in.
+     * @param match Local match.
+     * @return Future of the Challonge match, which is null if there isn't one.
+     */
+    private CompletableFuture<Match> challongeMatch(BracketMatch match) {
+        Match challongeMatch = claim(match);
+
+        if(challongeMatch != null) {
+            mirror.saved();
+            return CompletableFuture.completedFuture(challongeMatch);
+        }
+
+        return refreshMatches().thenApply(ignored -> claim(match));
+    }
+
+    /**
+     * Gets the Challonge match of a local match, pairing them up the first time it is found.
+     * Synchronized so two matches between the same teams can't claim the same Challonge match.
+     * @param match Local match.
+     * @return Challonge match, or null if it isn't in the mirror.
+     */
+    private synchronized Match claim(BracketMatch match) {
+        Long id = challongeMatches.get(match);
+        if(id != null) {
+            return mirror.match(id);
+        }
+
+        Match found = mirror.find(match.team1().challongeID(), match.team2().challongeID(), new HashSet<>(challongeMatches.values()));
+        if(found != null) {
+            challongeMatches.put(match, found.getId());
+        }
+
+        return found;
+    }
+
+    /**
+     * Fetches the tournament's matches, applying only the ones that changed to the mirror.
+     * Lookups that miss while a fetch is already running wait for it instead of starting another.
+     * @return Future of the fetch.
+     */
+    private synchronized CompletableFuture<Void> refreshMatches() {
+        if(refresh != null && !refresh.isDone()) {
+            mirror.saved();
+            return refresh;
+        }
+
+        refresh = client.call("fetch matches", () -> challonge.getMatches(tournament)).thenAccept(mirror::sync);
+        return refresh;
+    }
+
+    /**
+     * Get the local copy of the tournament's matches on Challonge.
+     * @return Challonge mirror.
+     */
+    public ChallongeMirror mirror() {
+        return mirror;
+    }
+
+    /**
+     * Get the client used to make Challonge calls.
+     * @return Challonge client.
+     */
+    public ChallongeClient client() {
+        return client;
+    }
+
+    /**
+     * A call to Challonge for a single match.
+     */
+    @FunctionalInterface
+    private interface MatchCall {
+        Match run(Match match) throws DataAccessException;
+    }
+}
\ No newline at end of file
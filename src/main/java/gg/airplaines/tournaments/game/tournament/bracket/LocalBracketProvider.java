@@ -0,0 +1,407 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.bracket;
+
+import gg.airplaines.tournaments.game.tournament.EliminationType;
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Runs a single or double elimination bracket entirely in memory.
+ * Uses standard seeding, so the top seeds get the byes when the number of teams isn't a power of two.
+ */
+public class LocalBracketProvider implements BracketProvider {
+    private final EliminationType eliminationType;
+    private final boolean thirdPlaceMatch;
+    private final List<BracketMatch> matches = new ArrayList<>();
+    private final List<EventTeam> eliminated = new ArrayList<>();
+    private final List<EventTeam> teams = new ArrayList<>();
+    private BracketMatch finalMatch;
+    private BracketMatch resetMatch;
+    private BracketMatch thirdPlace;
+
+    /**
+     * Creates the bracket engine.
+     * @param eliminationType Single or double elimination.
+     * @param thirdPlaceMatch Whether single elimination brackets hold a third place match.
+     */
+    public LocalBracketProvider(EliminationType eliminationType, boolean thirdPlaceMatch) {
+        this.eliminationType = eliminationType;
+        this.thirdPlaceMatch = thirdPlaceMatch;
+    }
+
+    @Override
+    public synchronized void create(List<EventTeam> teams) {
+        this.teams.addAll(teams);
+
+        // A tournament of one team has nothing to play.
+        if(teams.size() < 2) {
+            return;
+        }
+
+        int size = 2;
+        int rounds = 1;
+        while(size < teams.size()) {
+            size <<= 1;
+            rounds++;
+        }
+
+        // Winners bracket.
+        List<List<BracketMatch>> winners = new ArrayList<>();
+        for(int round = 1; round <= rounds; round++) {
+            winners.add(createRound(BracketMatch.Stage.WINNERS, round, size >> round));
+        }
+
+        for(int round = 0; round < rounds - 1; round++) {
+            List<BracketMatch> current = winners.get(round);
+            for(int index = 0; index < current.size(); index++) {
+                current.get(index).winnerNext(winners.get(round + 1).get(index / 2), index % 2);
+            }
+        }
+
+        BracketMatch winnersFinal = winners.get(rounds - 1).get(0);
+        finalMatch = winnersFinal;
+
+        if(eliminationType == EliminationType.DOUBLE_ELIMINATION) {
+            createLosersBracket(winners, size, rounds);
+        }
+        else if(thirdPlaceMatch && rounds >= 2) {
+            thirdPlace = new BracketMatch(matches.size() + 1, BracketMatch.Stage.THIRD_PLACE, 1);
+            matches.add(thirdPlace);
+
+            List<BracketMatch> semiFinals = winners.get(rounds - 2);
+            semiFinals.get(0).loserNext(thirdPlace, 0);
+            semiFinals.get(1).loserNext(thirdPlace, 1);
+        }
+
+        // Places the teams by seed, leaving empty slots as byes.
+        int[] seeds = seedOrder(size);
+        List<BracketMatch> firstRound = winners.get(0);
+        for(int index = 0; index < firstRound.size(); index++) {
+            fill(firstRound.get(index), 0, seeded(seeds[index * 2]));
+            fill(firstRound.get(index), 1, seeded(seeds[index * 2 + 1]));
+        }
+    }
+
+    @Override
+    public synchronized void resume(List<EventTeam> teams, List<BracketResult> results, String url) {
+        create(teams);
+
+        // A result can only be applied once its match has both teams, so keeps going until nothing changes.
+        List<BracketResult> remaining = new ArrayList<>(results);
+        boolean changed = true;
+        while(changed) {
+            changed = false;
+
+            Iterator<BracketResult> iterator = remaining.iterator();
+            while(iterator.hasNext()) {
+                BracketResult result = iterator.next();
+                BracketMatch match = match(result.match());
+
+                if(match != null && reportResult(match, result.winner(), result.winnerScore(), result.loserScore(), result.forfeited())) {
+                    iterator.remove();
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<BracketMatch> matches() {
+        return new ArrayList<>(matches);
+    }
+
+    @Override
+    public synchronized List<BracketMatch> openMatches() {
+        List<BracketMatch> open = new ArrayList<>();
+
+        for(BracketMatch match : matches) {
+            if(match.state() == BracketMatch.State.OPEN) {
+                open.add(match);
+            }
+        }
+
+        return open;
+    }
+
+    @Override
+    public synchronized void markUnderway(BracketMatch match) {
+        if(match.state() == BracketMatch.State.OPEN) {
+            match.state(BracketMatch.State.UNDERWAY);
+        }
+    }
+
+    @Override
+    public synchronized void unmarkUnderway(BracketMatch match) {
+        if(match.state() == BracketMatch.State.UNDERWAY) {
+            match.state(BracketMatch.State.OPEN);
+        }
+    }
+
+    @Override
+    public synchronized boolean reportResult(BracketMatch match, EventTeam winner, int winnerScore, int loserScore, boolean forfeited) {
+        if(match.state() == BracketMatch.State.COMPLETE || match.state() == BracketMatch.State.PENDING || !match.hasTeam(winner)) {
+            return false;
+        }
+
+        EventTeam loser = winner.equals(match.team1()) ? match.team2() : match.team1();
+        String scores = winner.equals(match.team1()) ? winnerScore + "-" + loserScore : loserScore + "-" + winnerScore;
+
+        match.complete(winner, loser, scores, forfeited, false);
+        advance(match, winner, loser);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isComplete() {
+        for(BracketMatch match : matches) {
+            if(match.state() != BracketMatch.State.COMPLETE) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public synchronized List<EventTeam> standings() {
+        List<EventTeam> standings = new ArrayList<>();
+
+        if(finalMatch == null) {
+            standings.addAll(teams);
+            return standings;
+        }
+
+        // The grand final reset decides the tournament if it was played.
+        BracketMatch decider = resetMatch != null && resetMatch.winner() != null ? resetMatch : finalMatch;
+        addStanding(standings, decider.winner());
+        addStanding(standings, decider.loser());
+
+        if(thirdPlace != null) {
+            addStanding(standings, thirdPlace.winner());
+            addStanding(standings, thirdPlace.loser());
+        }
+
+        // Everyone else is placed by how long they lasted.
+        List<EventTeam> remaining = new ArrayList<>(eliminated);
+        Collections.reverse(remaining);
+        remaining.forEach(team -> addStanding(standings, team));
+        return standings;
+    }
+
+    @Override
+    public void finish() {
+        // Nothing to do, the bracket only lives in memory.
+    }
+
+    @Override
+    public String url() {
+        return null;
+    }
+
+    /**
+     * Creates the losers bracket and the grand final of a double elimination bracket.
+     * Odd losers rounds drop in teams from the winners bracket, even rounds are played among the losers bracket.
+     * @param winners Rounds of the winners bracket.
+     * @param size Number of slots in the first round.
+     * @param rounds Number of winners bracket rounds.
+     */
+    private void createLosersBracket(List<List<BracketMatch>> winners, int size, int rounds) {
+        int losersRounds = 2 * (rounds - 1);
+        List<List<BracketMatch>> losers = new ArrayList<>();
+
+        for(int round = 1; round <= losersRounds; round++) {
+            losers.add(createRound(BracketMatch.Stage.LOSERS, round, size >> ((round + 1) / 2 + 1)));
+        }
+
+        // Losers of the first winners round play each other.
+        if(losersRounds > 0) {
+            List<BracketMatch> firstRound = winners.get(0);
+            for(int index = 0; index < firstRound.size(); index++) {
+                firstRound.get(index).loserNext(losers.get(0).get(index / 2), index % 2);
+            }
+        }
+
+        for(int round = 2; round <= losersRounds; round++) {
+            List<BracketMatch> previous = losers.get(round - 2);
+            List<BracketMatch> current = losers.get(round - 1);
+
+            if(round % 2 == 0) {
+                // Survivors of the losers bracket meet the losers of the next winners round.
+                // Every other round is crossed over, so teams are less likely to meet again right away.
+                List<BracketMatch> dropping = winners.get(round / 2);
+                boolean crossed = (round / 2) % 2 == 1;
+
+                for(int index = 0; index < current.size(); index++) {
+                    previous.get(index).winnerNext(current.get(index), 0);
+                    dropping.get(index).loserNext(current.get(crossed ? current.size() - 1 - index : index), 1);
+                }
+            }
+            else {
+                for(int index = 0; index < previous.size(); index++) {
+                    previous.get(index).winnerNext(current.get(index / 2), index % 2);
+                }
+            }
+        }
+
+        BracketMatch winnersFinal = winners.get(rounds - 1).get(0);
+        BracketMatch grandFinal = new BracketMatch(matches.size() + 1, BracketMatch.Stage.GRAND_FINAL, 1);
+        matches.add(grandFinal);
+        resetMatch = new BracketMatch(matches.size() + 1, BracketMatch.Stage.GRAND_FINAL, 2);
+        matches.add(resetMatch);
+
+        winnersFinal.winnerNext(grandFinal, 0);
+        if(losersRounds > 0) {
+            losers.get(losersRounds - 1).get(0).winnerNext(grandFinal, 1);
+        }
+        else {
+            winnersFinal.loserNext(grandFinal, 1);
+        }
+
+        finalMatch = grandFinal;
+    }
+
+    private List<BracketMatch> createRound(BracketMatch.Stage stage, int round, int count) {
+        List<BracketMatch> roundMatches = new ArrayList<>();
+
+        for(int index = 0; index < count; index++) {
+            BracketMatch match = new BracketMatch(matches.size() + 1, stage, round);
+            matches.add(match);
+            roundMatches.add(match);
+        }
+
+        return roundMatches;
+    }
+
+    /**
+     * Puts a team into a slot of a match.
+     * Once both slots are decided, the match either opens, or is skipped if a slot is empty.
+     * @param match Match to fill.
+     * @param slot Slot of the match.
+     * @param team Team to put in the slot. Null for an empty slot.
+     */
+    private void fill(BracketMatch match, int slot, EventTeam team) {
+        match.fill(slot, team);
+
+        if(!match.decided()) {
+            return;
+        }
+
+        EventTeam team1 = match.team(0);
+        EventTeam team2 = match.team(1);
+
+        if(team1 != null && team2 != null) {
+            match.state(BracketMatch.State.OPEN);
+            return;
+        }
+
+        // A bye. The remaining team advances, and nobody drops down.
+        EventTeam advancing = team1 != null ? team1 : team2;
+        match.complete(advancing, null, null, false, true);
+        advance(match, advancing, null);
+    }
+
+    /**
+     * Moves the winner and loser of a completed match to their next matches.
+     * @param match Match that completed.
+     * @param winner Winner of the match. Null if both slots were empty.
+     * @param loser Loser of the match. Null if there was none.
+     */
+    private void advance(BracketMatch match, EventTeam winner, EventTeam loser) {
+        // The grand final is only replayed if the losers' champion wins it.
+        if(match.stage() == BracketMatch.Stage.GRAND_FINAL && match.round() == 1) {
+            if(loser == null || winner.equals(match.team(0))) {
+                if(loser != null) {
+                    eliminated.add(loser);
+                }
+
+                fill(resetMatch, 0, null);
+                fill(resetMatch, 1, null);
+                return;
+            }
+
+            fill(resetMatch, 0, match.team(0));
+            fill(resetMatch, 1, match.team(1));
+            return;
+        }
+
+        if(match.winnerNext() != null) {
+            fill(match.winnerNext(), match.winnerSlot(), winner);
+        }
+
+        if(match.loserNext() != null) {
+            fill(match.loserNext(), match.loserSlot(), loser);
+        }
+        else if(loser != null) {
+            eliminated.add(loser);
+        }
+    }
+
+    private BracketMatch match(int id) {
+        for(BracketMatch match : matches) {
+            if(match.id() == id) {
+                return match;
+            }
+        }
+
+        return null;
+    }
+
+    private EventTeam seeded(int seed) {
+        return seed <= teams.size() ? teams.get(seed - 1) : null;
+    }
+
+    private void addStanding(List<EventTeam> standings, EventTeam team) {
+        if(team != null && !standings.contains(team)) {
+            standings.add(team);
+        }
+    }
+
+    /**
+     * Get the seed placed in each first round slot, so the best seeds meet as late as possible.
+     * Seed 1 plays the last seed, seed 2 plays the second to last, and so on.
+     * @param size Number of slots.
+     * @return Seed of each slot.
+     */
+    static int[] seedOrder(int size) {
+        int[] seeds = {1, 2};
+
+        while(seeds.length < size) {
+            int[] next = new int[seeds.length * 2];
+            for(int index = 0; index < seeds.length; index++) {
+                next[index * 2] = seeds[index];
+                next[index * 2 + 1] = seeds.length * 2 + 1 - seeds[index];
+            }
+
+            seeds = next;
+        }
+
+        return seeds;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,349 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.challonge;
+
+import at.stefangeyer.challonge.Challonge;
+import at.stefangeyer.challonge.exception.DataAccessException;
+import at.stefangeyer.challonge.model.Credentials;
+import at.stefangeyer.challonge.rest.retrofit.ChallongeRetrofit;
+import at.stefangeyer.challonge.rest.retrofit.RetrofitRestClient;
+import at.stefangeyer.challonge.rest.retrofit.converter.RetrofitConverterFactory;
+import at.stefangeyer.challonge.serializer.Serializer;
+import at.stefangeyer.challonge.serializer.gson.GsonSerializer;
+import gg.airplaines.tournaments.TournamentsPlugin;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Retrofit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes Challonge calls on a small pool of background threads, without blocking the caller.
+ * Failed calls are retried with exponential backoff and jitter. Retries are scheduled instead of slept on,
+ * so an outage doesn't hold a thread for every call waiting to be retried.
+ * Retries also share a budget, so when Challonge is down calls start failing fast instead of piling up.
+ * Calls are spread out to stay under a configurable rate limit, by delaying them rather than blocking.
+ * One client lives as long as the plugin, so every tournament reuses its pooled connections and serializer.
+ */
+public class ChallongeClient {
+    /**
+     * Address the Challonge api is served from, used to open a connection ahead of time.
+     */
+    private static final String API_URL = "https://api.challonge.com/v1/";
+
+    private final TournamentsPlugin plugin;
+    private final Challonge challonge;
+    private final ConnectionPool connectionPool;
+    private final OkHttpClient httpClient;
+    private final ScheduledThreadPoolExecutor executor;
+    private final int maxAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final int retryBudget;
+    private final AtomicInteger retryTokens;
+    private final long permitInterval;
+    private final AtomicLong nextPermit = new AtomicLong(System.nanoTime());
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Connects to Challonge with the credentials in the config.
+     * @param plugin Instance of the plugin.
+     */
+    public ChallongeClient(final TournamentsPlugin plugin) {
+        this(plugin, null);
+    }
+
+    /**
+     * Creates a client that makes its calls with the given api, so tests can stand in for Challonge.
+     * @param plugin Instance of the plugin.
+     * @param challonge Challonge api to use, or null to connect with the credentials in the config.
+     */
+    ChallongeClient(final TournamentsPlugin plugin, Challonge challonge) {
+        this.plugin = plugin;
+
+        // Keeps connections open between calls, so they don't need a new TLS handshake every time.
+        int idleConnections = Math.max(1, plugin.settingsManager().getConfig().getInt("challonge.http.idle-connections", 5));
+        long keepAlive = Math.max(1, plugin.settingsManager().getConfig().getLong("challonge.http.keep-alive", 300));
+        this.connectionPool = new ConnectionPool(idleConnections, keepAlive, TimeUnit.SECONDS);
+
+        OkHttpClient.Builder httpClientBuilder = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .connectTimeout(Math.max(1, plugin.settingsManager().getConfig().getLong("challonge.http.connect-timeout", 10)), TimeUnit.SECONDS)
+                .readTimeout(Math.max(1, plugin.settingsManager().getConfig().getLong("challonge.http.read-timeout", 30)), TimeUnit.SECONDS)
+                .writeTimeout(Math.max(1, plugin.settingsManager().getConfig().getLong("challonge.http.write-timeout", 30)), TimeUnit.SECONDS);
+        this.httpClient = httpClientBuilder.build();
+
+        if(challonge == null) {
+            Credentials credentials = new Credentials(plugin.settingsManager().getConfig().getString("challonge.username"), plugin.settingsManager().getConfig().getString("challonge.api-key"));
+            GsonSerializer serializer = new GsonSerializer();
+            challonge = new Challonge(credentials, serializer, new RetrofitRestClient(api(credentials, serializer), false));
+        }
+        this.challonge = challonge;
+
+        this.maxAttempts = Math.max(1, plugin.settingsManager().getConfig().getInt("challonge.retry.max-attempts", 5));
+        this.baseDelay = Math.max(1, plugin.settingsManager().getConfig().getLong("challonge.retry.base-delay", 500));
+        this.maxDelay = Math.max(baseDelay, plugin.settingsManager().getConfig().getLong("challonge.retry.max-delay", 30000));
+        this.retryBudget = Math.max(0, plugin.settingsManager().getConfig().getInt("challonge.retry.budget", 20));
+        this.retryTokens = new AtomicInteger(retryBudget);
+
+        // Calls per second, with 0 meaning unlimited.
+        int rateLimit = Math.max(0, plugin.settingsManager().getConfig().getInt("challonge.rate-limit", 10));
+        this.permitInterval = rateLimit == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / rateLimit;
+
+        int threads = Math.max(1, plugin.settingsManager().getConfig().getInt("challonge.threads", 2));
+        this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Tournaments Challonge");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Retries still waiting on their backoff are dropped on shutdown.
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Creates the Challonge api on the pooled http client.
+     * The rest client only builds its own http client when it isn't given an api, so it gets one that shares the pool.
+     * Does what the rest client would: logs in with the credentials, and asks for json.
+     * @param credentials Challonge username and api key.
+     * @param serializer Serializer of requests and responses.
+     * @return Challonge api.
+     */
+    private ChallongeRetrofit api(Credentials credentials, Serializer serializer) {
+        OkHttpClient challongeHttpClient = httpClient.newBuilder()
+                .authenticator((route, response) -> {
+                    // Gives up once the credentials were rejected, instead of sending them again.
+                    if(response.priorResponse() != null) {
+                        return null;
+                    }
+
+                    String authorization = okhttp3.Credentials.basic(credentials.getUsername(), credentials.getKey(), StandardCharsets.UTF_8);
+                    return response.request().newBuilder().header("Authorization", authorization).build();
+                })
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder().header("Accept", "application/json").build()))
+                .build();
+
+        return new Retrofit.Builder()
+                .client(challongeHttpClient)
+                .baseUrl(API_URL)
+                .addConverterFactory(new RetrofitConverterFactory(serializer))
+                .build()
+                .create(ChallongeRetrofit.class);
+    }
+
+    /**
+     * Opens a connection to Challonge in the background, so the first call of a tournament doesn't wait on it.
+     */
+    public void warmUp() {
+        try {
+            executor.execute(() -> {
+                Request request = new Request.Builder().url(API_URL).head().build();
+
+                try(Response response = httpClient.newCall(request).execute()) {
+                    plugin.getLogger().fine("Connected to Challonge (" + response.code() + ").");
+                }
+                catch (IOException exception) {
+                    plugin.getLogger().warning("Could not connect to Challonge: " + exception.getMessage());
+                }
+            });
+        }
+        catch (RejectedExecutionException exception) {
+            // The client was shut down before it was warmed up.
+        }
+    }
+
+    /**
+     * Get the Challonge api the calls are made with.
+     * @return Challonge api.
+     */
+    public Challonge challonge() {
+        return challonge;
+    }
+
+    /**
+     * Makes a Challonge call in the background.
+     * The returned future fails with a ChallongeException once the call runs out of retries.
+     * @param description What the call does, for logging.
+     * @param call Call to make.
+     * @param <T> Type returned by the call.
+     * @return Future of the call's result.
+     */
+    public <T> CompletableFuture<T> call(String description, ChallongeCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        try {
+            executor.schedule(() -> attempt(description, call, future, 1), permitDelay(), TimeUnit.NANOSECONDS);
+        }
+        catch (RejectedExecutionException exception) {
+            fail(future, new ChallongeException("Could not " + description + ", the Challonge client is shut down.", exception));
+        }
+
+        return future;
+    }
+
+    /**
+     * Makes one attempt at a call, scheduling another if it fails and there are retries left.
+     * @param description What the call does, for logging.
+     * @param call Call to make.
+     * @param future Future to complete with the result.
+     * @param attempt Number of the attempt, starting at 1.
+     * @param <T> Type returned by the call.
+     */
+    private <T> void attempt(String description, ChallongeCall<T> call, CompletableFuture<T> future, int attempt) {
+        T result;
+
+        try {
+            result = call.call();
+        }
+        catch (DataAccessException exception) {
+            if(attempt >= maxAttempts) {
+                fail(future, new ChallongeException("Could not " + description + " after " + attempt + " attempts.", exception));
+                return;
+            }
+
+            if(!takeRetryToken()) {
+                fail(future, new ChallongeException("Could not " + description + ", the Challonge retry budget is used up.", exception));
+                return;
+            }
+
+            long delay = Math.max(TimeUnit.MILLISECONDS.toNanos(delay(attempt)), permitDelay());
+            plugin.getLogger().warning("Could not " + description + " on Challonge (attempt " + attempt + "), retrying in " + TimeUnit.NANOSECONDS.toMillis(delay) + "ms: " + exception.getMessage());
+            retries.incrementAndGet();
+
+            try {
+                executor.schedule(() -> attempt(description, call, future, attempt + 1), delay, TimeUnit.NANOSECONDS);
+            }
+            catch (RejectedExecutionException rejectedException) {
+                fail(future, new ChallongeException("Could not " + description + ", the Challonge client is shut down.", exception));
+            }
+            return;
+        }
+        catch (RuntimeException exception) {
+            fail(future, exception);
+            return;
+        }
+
+        // Each successful call earns back a retry, up to the budget.
+        retryTokens.getAndUpdate(tokens -> Math.min(retryBudget, tokens + 1));
+        future.complete(result);
+    }
+
+    /**
+     * Get how long to wait before the next attempt.
+     * Doubles with every attempt up to the maximum, and is randomized between half and the full delay
+     * so calls that failed together don't all retry at the same time.
+     * @param attempt Number of the attempt that failed.
+     * @return Delay in milliseconds.
+     */
+    private long delay(int attempt) {
+        long delay = Math.min(maxDelay, baseDelay << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(delay / 2, delay + 1);
+    }
+
+    /**
+     * Reserves the next free slot under the rate limit.
+     * @return Nanoseconds to wait until the slot.
+     */
+    private long permitDelay() {
+        if(permitInterval == 0) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        long slot = nextPermit.getAndUpdate(next -> Math.max(next, now) + permitInterval);
+        return Math.max(0, slot - now);
+    }
+
+    /**
+     * Takes a retry out of the shared budget.
+     * @return Whether there was one left.
+     */
+    private boolean takeRetryToken() {
+        return retryTokens.getAndUpdate(tokens -> Math.max(0, tokens - 1)) > 0;
+    }
+
+    private void fail(CompletableFuture<?> future, Throwable exception) {
+        failures.incrementAndGet();
+        future.completeExceptionally(exception);
+    }
+
+    /**
+     * Get the number of retries made since the client was created.
+     * @return Number of retries.
+     */
+    public long retries() {
+        return retries.get();
+    }
+
+    /**
+     * Get the number of calls that were given up on.
+     * @return Number of failed calls.
+     */
+    public long failures() {
+        return failures.get();
+    }
+
+    /**
+     * Get the number of retries left in the shared budget.
+     * @return Remaining retries.
+     */
+    public int retryTokens() {
+        return retryTokens.get();
+    }
+
+    /**
+     * Stops the client. Calls already running are finished, but waiting retries are dropped.
+     * Waits briefly for running calls, then closes the pooled connections.
+     */
+    public void shutdown() {
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        connectionPool.evictAll();
+    }
+
+    /**
+     * A call to Challonge that can fail.
+     * @param <T> Type returned by the call.
+     */
+    @FunctionalInterface
+    public interface ChallongeCall<T> {
+        T call() throws DataAccessException;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,184 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.challonge;
+
+import at.stefangeyer.challonge.model.Match;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local copy of a tournament's matches on Challonge.
+ * Fetched matches are only applied when they changed since the last sync, and matches returned by
+ * updates are applied straight away, so lookups rarely have to fetch the whole tournament again.
+ */
+public class ChallongeMirror {
+    private final Map<Long, Match> matches = new ConcurrentHashMap<>();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong apiCallsSaved = new AtomicLong();
+
+    /**
+     * Applies the matches fetched from Challonge, keeping the ones that didn't change.
+     * @param fetched Every match in the tournament.
+     * @return Number of matches that were added or changed.
+     */
+    public int sync(Iterable<Match> fetched) {
+        int changed = 0;
+
+        for(Match match : fetched) {
+            if(update(match)) {
+                changed++;
+            }
+        }
+
+        syncs.incrementAndGet();
+        changes.addAndGet(changed);
+        return changed;
+    }
+
+    /**
+     * Applies a single match, like the one Challonge returns after it is updated.
+     * @param match Match from Challonge.
+     * @return Whether the match was added or changed.
+     */
+    public boolean update(Match match) {
+        if(match == null || match.getId() == null) {
+            return false;
+        }
+
+        Match known = matches.get(match.getId());
+        if(known != null && Objects.equals(known.getUpdatedAt(), match.getUpdatedAt()) && Objects.equals(known.getState(), match.getState())) {
+            return false;
+        }
+
+        matches.put(match.getId(), match);
+        return true;
+    }
+
+    /**
+     * Get a match by its Challonge id.
+     * @param id Id of the match.
+     * @return Latest copy of the match, or null if it isn't known.
+     */
+    public Match match(Long id) {
+        return matches.get(id);
+    }
+
+    /**
+     * Finds the undecided match between two participants.
+     * @param participant1 Challonge id of the first participant.
+     * @param participant2 Challonge id of the second participant.
+     * @param used Ids of matches that were already used, which are skipped.
+     * @return Match between the participants, or null if there isn't one yet.
+     */
+    public Match find(Long participant1, Long participant2, Set<Long> used) {
+        for(Match match : matches.values()) {
+            Long player1 = match.getPlayer1Id();
+            Long player2 = match.getPlayer2Id();
+
+            if(!((participant1.equals(player1) && participant2.equals(player2)) || (participant1.equals(player2) && participant2.equals(player1)))) {
+                continue;
+            }
+
+            // Teams can meet twice in double elimination, so skip matches that were already used.
+            if(used.contains(match.getId()) || match.getWinnerId() != null) {
+                continue;
+            }
+
+            return match;
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds a decided match between two participants.
+     * @param participant1 Challonge id of the first participant.
+     * @param participant2 Challonge id of the second participant.
+     * @param used Ids of matches that were already used, which are skipped.
+     * @return Match between the participants that has a winner, or null if there isn't one.
+     */
+    public Match decided(Long participant1, Long participant2, Set<Long> used) {
+        for(Match match : matches.values()) {
+            Long player1 = match.getPlayer1Id();
+            Long player2 = match.getPlayer2Id();
+
+            if(!((participant1.equals(player1) && participant2.equals(player2)) || (participant1.equals(player2) && participant2.equals(player1)))) {
+                continue;
+            }
+
+            if(used.contains(match.getId()) || match.getWinnerId() == null) {
+                continue;
+            }
+
+            return match;
+        }
+
+        return null;
+    }
+
+    /**
+     * Counts a lookup that was answered without fetching the tournament.
+     */
+    public void saved() {
+        apiCallsSaved.incrementAndGet();
+    }
+
+    /**
+     * Get the number of times the matches were fetched from Challonge.
+     * @return Number of syncs.
+     */
+    public long syncs() {
+        return syncs.get();
+    }
+
+    /**
+     * Get the number of match changes applied by syncs.
+     * @return Number of changes.
+     */
+    public long changes() {
+        return changes.get();
+    }
+
+    /**
+     * Get the number of Challonge calls that were avoided by using the mirror.
+     * @return Number of calls saved.
+     */
+    public long apiCallsSaved() {
+        return apiCallsSaved.get();
+    }
+
+    /**
+     * Get the number of matches in the mirror.
+     * @return Number of matches.
+     */
+    public int size() {
+        return matches.size();
+    }
+}
\ No newline at end of file
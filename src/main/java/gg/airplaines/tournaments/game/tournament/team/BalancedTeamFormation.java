@@ -0,0 +1,182 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.team;
+
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Forms teams with ratings as even as possible.
+ * Players are handed out strongest first, each to the open team with the lowest total rating.
+ * Then the strongest and weakest teams swap players while it brings them closer together, for a limited number of passes.
+ */
+public class BalancedTeamFormation implements TeamFormationStrategy {
+    private final ToDoubleFunction<Player> rating;
+    private final int passes;
+
+    /**
+     * Creates the strategy.
+     * @param rating Gets the rating of a player.
+     * @param passes Most swaps made after the teams are formed.
+     */
+    public BalancedTeamFormation(ToDoubleFunction<Player> rating, int passes) {
+        this.rating = rating;
+        this.passes = passes;
+    }
+
+    @Override
+    public List<List<Player>> form(List<Player> players, int teamSize) {
+        if(players.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Each player's rating is looked up once.
+        Map<Player, Double> ratings = new HashMap<>();
+        players.forEach(player -> ratings.put(player, rating.applyAsDouble(player)));
+
+        List<Player> sorted = new ArrayList<>(players);
+        Collections.shuffle(sorted);
+        sorted.sort(Comparator.comparingDouble((Player player) -> ratings.get(player)).reversed());
+
+        // The players left over after filling every team make up a smaller team.
+        // They are taken from the middle of the ratings, so that team ends up close to the average.
+        int leftOver = sorted.size() % teamSize;
+        List<Player> smallTeam = new ArrayList<>();
+        if(leftOver > 0) {
+            int start = (sorted.size() - leftOver) / 2;
+            List<Player> middle = sorted.subList(start, start + leftOver);
+            smallTeam.addAll(middle);
+            middle.clear();
+        }
+
+        List<FormingTeam> teams = new ArrayList<>();
+        for(int i = 0; i < sorted.size() / teamSize; i++) {
+            teams.add(new FormingTeam(teamSize));
+        }
+
+        PriorityQueue<FormingTeam> open = new PriorityQueue<>(Comparator.comparingDouble(FormingTeam::total));
+        open.addAll(teams);
+
+        for(Player player : sorted) {
+            FormingTeam team = open.poll();
+            team.add(player, ratings.get(player));
+
+            if(!team.full()) {
+                open.add(team);
+            }
+        }
+
+        improve(teams, ratings);
+
+        List<List<Player>> formed = new ArrayList<>();
+        teams.forEach(team -> formed.add(team.players));
+        if(!smallTeam.isEmpty()) {
+            formed.add(smallTeam);
+        }
+        return formed;
+    }
+
+    /**
+     * Swaps players between the strongest and weakest teams while it makes them more even.
+     * @param teams Formed teams.
+     * @param ratings Rating of every player.
+     */
+    private void improve(List<FormingTeam> teams, Map<Player, Double> ratings) {
+        if(teams.size() < 2) {
+            return;
+        }
+
+        for(int pass = 0; pass < passes; pass++) {
+            FormingTeam strongest = Collections.max(teams, Comparator.comparingDouble(FormingTeam::average));
+            FormingTeam weakest = Collections.min(teams, Comparator.comparingDouble(FormingTeam::average));
+            double gap = strongest.average() - weakest.average();
+
+            // Finds the swap that closes the gap the most.
+            int bestStrong = -1;
+            int bestWeak = -1;
+            double bestGap = gap;
+
+            for(int i = 0; i < strongest.players.size(); i++) {
+                double strongRating = ratings.get(strongest.players.get(i));
+
+                for(int j = 0; j < weakest.players.size(); j++) {
+                    double difference = strongRating - ratings.get(weakest.players.get(j));
+                    double newGap = Math.abs((strongest.total - difference) / strongest.players.size() - (weakest.total + difference) / weakest.players.size());
+
+                    if(newGap < bestGap) {
+                        bestGap = newGap;
+                        bestStrong = i;
+                        bestWeak = j;
+                    }
+                }
+            }
+
+            if(bestStrong == -1) {
+                return;
+            }
+
+            Player strongPlayer = strongest.players.get(bestStrong);
+            Player weakPlayer = weakest.players.get(bestWeak);
+            double difference = ratings.get(strongPlayer) - ratings.get(weakPlayer);
+
+            strongest.players.set(bestStrong, weakPlayer);
+            weakest.players.set(bestWeak, strongPlayer);
+            strongest.total -= difference;
+            weakest.total += difference;
+        }
+    }
+
+    /**
+     * A team while it is being formed.
+     */
+    private static class FormingTeam {
+        private final List<Player> players = new ArrayList<>();
+        private final int capacity;
+        private double total = 0;
+
+        private FormingTeam(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private void add(Player player, double rating) {
+            players.add(player);
+            total += rating;
+        }
+
+        private boolean full() {
+            return players.size() >= capacity;
+        }
+
+        private double total() {
+            return total;
+        }
+
+        private double average() {
+            return players.isEmpty() ? 0 : total / players.size();
+        }
+    }
+}
\ No newline at end of file
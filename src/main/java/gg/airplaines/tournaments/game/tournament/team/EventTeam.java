@@ -36,6 +36,21 @@ public class EventTeam {
     private Long challongeID;
     private String name = "";
 
+    public EventTeam() {
+    }
+
+    /**
+     * Recreates a team that was saved in a checkpoint.
+     * @param name Name of the team.
+     * @param playerUUIDs UUIDs of the team's players.
+     * @param challongeID Id of the team on Challonge, or null if it has none.
+     */
+    EventTeam(String name, List<UUID> playerUUIDs, Long challongeID) {
+        this.name = name;
+        this.playerUUIDs.addAll(playerUUIDs);
+        this.challongeID = challongeID;
+    }
+
     public void addPlayer(Player player) {
         playerUUIDs.add(player.getUniqueId());
 
@@ -61,6 +76,10 @@ public class EventTeam {
         return name;
     }
 
+    public List<UUID> playerUUIDs() {
+        return new ArrayList<>(playerUUIDs);
+    }
+
     public List<Player> players() {
         List<Player> teamPlayers = new ArrayList<>();
 
@@ -29,6 +29,7 @@ import org.bukkit.entity.Player;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 public class EventTeamManager {
     private final List<EventTeam> teams = new ArrayList<>();
@@ -47,6 +48,19 @@ public class EventTeamManager {
         return team;
     }
 
+    /**
+     * Recreates a team that was saved in a checkpoint, when an event is resumed.
+     * @param name Name of the team.
+     * @param playerUUIDs UUIDs of the team's players.
+     * @param challongeID Id of the team on Challonge, or null if it has none.
+     * @return The recreated team.
+     */
+    public EventTeam createTeam(String name, List<UUID> playerUUIDs, Long challongeID) {
+        EventTeam team = new EventTeam(name, playerUUIDs, challongeID);
+        teams.add(team);
+        return team;
+    }
+
     public EventTeam team(Long challongeID) {
         for(EventTeam team : teams) {
             if(team.challongeID().equals(challongeID)) {
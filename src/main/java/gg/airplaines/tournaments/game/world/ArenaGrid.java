@@ -0,0 +1,557 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.world;
+
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.Game;
+import gg.airplaines.tournaments.game.arena.Arena;
+import gg.airplaines.tournaments.game.arena.ArenaBounds;
+import gg.airplaines.tournaments.game.kit.Kit;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketMatch;
+import gg.airplaines.tournaments.utils.FileUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.util.Vector;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Hosts many games in a single void world.
+ * The world is split into square cells, and each game gets a cell with its arena pasted into it.
+ * Arenas are read from a copy of their world once, and pasted from memory after that.
+ */
+public class ArenaGrid {
+    private static final String WORLD_NAME = "tournaments_grid";
+
+    /**
+     * Empty space, in blocks, kept between the arenas of neighbouring cells.
+     */
+    private static final int CELL_GAP = 64;
+
+    /**
+     * Arena chunks read from the source world per tick.
+     */
+    private static final int CHUNKS_PER_TICK = 8;
+
+    /**
+     * Times clearing a cell is tried before the cell is taken out of use.
+     */
+    private static final int CLEAR_ATTEMPTS = 3;
+
+    private final TournamentsPlugin plugin;
+    private final int cellSize;
+    private final int columns;
+    private final int blocksPerTick;
+    private final int maxCells;
+    private final Deque<Integer> freeCells = new ArrayDeque<>();
+    private final Set<Integer> quarantinedCells = new HashSet<>();
+    private final Map<Integer, Game> cellGames = new ConcurrentHashMap<>();
+    // Keyed by arena id, since the arena is loaded again as a new object every time it is saved.
+    private final Map<String, CompletableFuture<ArenaBlocks>> arenaBlocks = new ConcurrentHashMap<>();
+    private int nextCell = 0;
+    private World world;
+
+    /**
+     * Creates the arena grid. The grid world is created the first time a game needs it.
+     * @param plugin Instance of the plugin.
+     */
+    public ArenaGrid(final TournamentsPlugin plugin) {
+        this.plugin = plugin;
+        this.cellSize = Math.max(CELL_GAP * 2, plugin.settingsManager().getConfig().getInt("grid.cell-size", 1024));
+        this.columns = Math.max(1, plugin.settingsManager().getConfig().getInt("grid.columns", 16));
+        this.blocksPerTick = Math.max(1, plugin.settingsManager().getConfig().getInt("grid.blocks-per-tick", 20000));
+        this.maxCells = Math.max(0, plugin.settingsManager().getConfig().getInt("grid.max-cells", 64));
+    }
+
+    /**
+     * Check if a game in an arena can be hosted in the grid.
+     * The arena needs bounds from a world border that fit in a cell, since only the blocks inside them are pasted.
+     * The kit can't allow building either, since only the blocks the game tracks can be cleaned up.
+     * @param arena Arena to check.
+     * @param kit Kit the game will use.
+     * @return Whether the game can be hosted in the grid.
+     */
+    public boolean supports(Arena arena, Kit kit) {
+        ArenaBounds bounds = arena.bounds();
+
+        if(bounds == null || arena.boundsSource() != ArenaBounds.Source.BORDER || kit.build()) {
+            return false;
+        }
+
+        int usable = cellSize - CELL_GAP;
+        return bounds.maxX() - bounds.minX() < usable && bounds.maxZ() - bounds.minZ() < usable;
+    }
+
+    /**
+     * Starts reading an arena's blocks ahead of time, so its first game doesn't have to wait on it.
+     * @param arena Arena to read.
+     */
+    public void prepare(Arena arena) {
+        blocks(arena);
+    }
+
+    /**
+     * Creates a game in a free cell of the grid.
+     * @param arena Arena to paste into the cell.
+     * @param kit Kit the game will use.
+     * @param match Bracket match the game is for.
+     * @return Future completed with the created game.
+     */
+    public CompletableFuture<Game> host(Arena arena, Kit kit, BracketMatch match) {
+        return blocks(arena).thenCompose(blocks -> {
+            CompletableFuture<Game> gameCreation = new CompletableFuture<>();
+
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                GridCell cell = allocate();
+                ArenaBounds bounds = arena.bounds();
+                Vector offset = new Vector(cell.minX() + CELL_GAP / 2 - bounds.minX(), 0, cell.minZ() + CELL_GAP / 2 - bounds.minZ());
+
+                paste(blocks, offset).whenComplete((result, exception) -> {
+                    if(exception != null) {
+                        clearCell(cell, area(cell, bounds), 1);
+                        gameCreation.completeExceptionally(exception);
+                        return;
+                    }
+
+                    Game game = new Game(plugin, kit, arena, world, UUID.randomUUID(), match, cell, offset);
+                    cellGames.put(cell.index(), game);
+                    gameCreation.complete(game);
+                });
+            });
+
+            return gameCreation;
+        });
+    }
+
+    /**
+     * Cleans up the cell of a finished game, and frees it for the next game.
+     * Must be called on the main thread.
+     * @param game Game that finished.
+     */
+    public void release(Game game) {
+        GridCell cell = game.cell();
+        cellGames.remove(cell.index(), game);
+
+        game.resetArena();
+        for(Entity entity : game.entities()) {
+            if(entity instanceof Player) {
+                continue;
+            }
+
+            entity.remove();
+        }
+
+        clearCell(cell, area(cell, game.arena().bounds()), 1);
+    }
+
+    /**
+     * Get the game being played at a location.
+     * Returns null if the location isn't in a grid cell that is in use.
+     * @param location Location to get the game of.
+     * @return Game at that location.
+     */
+    public Game game(Location location) {
+        if(world == null || !world.equals(location.getWorld())) {
+            return null;
+        }
+
+        int cellX = Math.floorDiv(location.getBlockX(), cellSize);
+        int cellZ = Math.floorDiv(location.getBlockZ(), cellSize);
+
+        if(cellX < 0 || cellX >= columns || cellZ < 0) {
+            return null;
+        }
+
+        return cellGames.get(cellZ * columns + cellX);
+    }
+
+    /**
+     * Drops the blocks read from an arena, so the next game reads the arena again.
+     * Must be called whenever the arena world is saved again.
+     * @param id Id of the arena.
+     */
+    public void invalidate(String id) {
+        arenaBlocks.remove(id);
+    }
+
+    /**
+     * Check if a world is the grid world.
+     * @param world World to check.
+     * @return Whether it is the grid world.
+     */
+    public boolean isGridWorld(World world) {
+        return this.world != null && this.world.equals(world);
+    }
+
+    /**
+     * Get the number of cells currently hosting or cleaning up a game.
+     * @return Cells in use.
+     */
+    public int usedCells() {
+        return nextCell - freeCells.size();
+    }
+
+    /**
+     * Check if the grid can fit more games, on top of the ones still being created.
+     * The grid grows as games need cells, up to the configured maximum.
+     * @param starting Grid games that were admitted but don't have a cell yet.
+     * @return Whether another game can be given a cell.
+     */
+    public boolean hasRoom(int starting) {
+        return maxCells == 0 || usedCells() + starting < maxCells;
+    }
+
+    /**
+     * Get the most cells the grid can have, or 0 if it has no limit.
+     * @return Maximum cells.
+     */
+    public int maxCells() {
+        return maxCells;
+    }
+
+    /**
+     * Get the number of cells that were used before and are ready for a new game.
+     * @return Free cells.
+     */
+    public int freeCells() {
+        return freeCells.size();
+    }
+
+    /**
+     * Get the number of cells that couldn't be cleared, and are waiting to be cleared again or out of use.
+     * @return Quarantined cells.
+     */
+    public int quarantinedCells() {
+        return quarantinedCells.size();
+    }
+
+    /**
+     * Unloads the grid world without saving it. Used when the plugin is disabled.
+     */
+    public void clear() {
+        if(world == null) {
+            return;
+        }
+
+        for(Player player : world.getPlayers()) {
+            plugin.getLobbyManager().sendToLobby(player);
+        }
+
+        Bukkit.unloadWorld(world, false);
+        world = null;
+    }
+
+    /**
+     * Get a free cell, creating the grid world if it isn't loaded yet.
+     * Must be called on the main thread.
+     * @return Free cell.
+     */
+    private GridCell allocate() {
+        if(world == null) {
+            // The grid is rebuilt every time the server starts.
+            File worldFolder = new File(Bukkit.getWorldContainer(), WORLD_NAME);
+            if(worldFolder.exists()) {
+                FileUtils.deleteDirectory(worldFolder);
+            }
+
+            world = Bukkit.createWorld(plugin.gameManager().worldProfile().creator(WORLD_NAME));
+            plugin.gameManager().worldProfile().apply(world);
+        }
+
+        Integer index = freeCells.poll();
+        if(index == null) {
+            index = nextCell++;
+        }
+
+        return new GridCell(index, (index % columns) * cellSize, (index / columns) * cellSize, cellSize);
+    }
+
+    private void free(GridCell cell) {
+        quarantinedCells.remove(cell.index());
+        freeCells.add(cell.index());
+    }
+
+    /**
+     * Get the part of a cell a game can change: the pasted arena, and the gap around it up to the neighbouring cells.
+     * @param cell Cell of the game.
+     * @param bounds Bounds of the arena pasted into it.
+     * @return Area of the cell to clear.
+     */
+    private ArenaBounds area(GridCell cell, ArenaBounds bounds) {
+        return new ArenaBounds(cell.minX(), cell.minZ(),
+                Math.min(cell.minX() + cell.size() - 1, cell.minX() + CELL_GAP + bounds.maxX() - bounds.minX()),
+                Math.min(cell.minZ() + cell.size() - 1, cell.minZ() + CELL_GAP + bounds.maxZ() - bounds.minZ()));
+    }
+
+    /**
+     * Removes every block in an area of a cell, then frees the cell.
+     * The whole area is cleared rather than only the arena's blocks, so flowing liquids, fire and falling blocks don't
+     * carry over into the next game. If clearing fails, the cell is kept out of use and cleared again later.
+     * Must be called on the main thread.
+     * @param cell Cell to clear.
+     * @param area Area of the cell to clear.
+     * @param attempt Number of this attempt, starting at 1.
+     */
+    private void clearCell(GridCell cell, ArenaBounds area, int attempt) {
+        read(world, area).thenCompose(blocks -> clear(blocks, new Vector())).whenComplete((result, exception) -> {
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if(exception == null) {
+                    free(cell);
+                    return;
+                }
+
+                quarantinedCells.add(cell.index());
+
+                if(attempt >= CLEAR_ATTEMPTS) {
+                    plugin.getLogger().severe("Could not clear grid cell " + cell.index() + " after " + attempt + " attempts, it will not be used again: " + exception);
+                    return;
+                }
+
+                plugin.getLogger().warning("Could not clear grid cell " + cell.index() + ", trying again: " + exception);
+                plugin.getServer().getScheduler().runTaskLater(plugin, () -> clearCell(cell, area, attempt + 1), 100);
+            });
+        });
+    }
+
+    /**
+     * Places an arena's blocks at an offset, spread over as many ticks as needed to stay within the block budget.
+     * @param blocks Blocks of the arena.
+     * @param offset Offset to place them at.
+     * @return Future completed once every block is placed.
+     */
+    private CompletableFuture<Void> paste(ArenaBlocks blocks, Vector offset) {
+        int offsetX = offset.getBlockX();
+        int offsetZ = offset.getBlockZ();
+
+        return runBatched(blocks.size(), blocksPerTick, index -> world.getBlockAt(blocks.xs[index] + offsetX, blocks.ys[index], blocks.zs[index] + offsetZ)
+                .setTypeIdAndData(blocks.ids[index], blocks.data[index], false));
+    }
+
+    /**
+     * Removes blocks from an offset, the same way they were placed.
+     * @param blocks Blocks to remove.
+     * @param offset Offset they were placed at.
+     * @return Future completed once every block is removed.
+     */
+    private CompletableFuture<Void> clear(ArenaBlocks blocks, Vector offset) {
+        int offsetX = offset.getBlockX();
+        int offsetZ = offset.getBlockZ();
+
+        return runBatched(blocks.size(), blocksPerTick, index -> world.getBlockAt(blocks.xs[index] + offsetX, blocks.ys[index], blocks.zs[index] + offsetZ)
+                .setTypeIdAndData(0, (byte) 0, false));
+    }
+
+    /**
+     * Get the blocks of an arena, reading them if that hasn't been done yet.
+     * @param arena Arena to get the blocks of.
+     * @return Future completed with the arena's blocks.
+     */
+    private CompletableFuture<ArenaBlocks> blocks(Arena arena) {
+        return arenaBlocks.computeIfAbsent(arena.id(), id -> read(arena));
+    }
+
+    /**
+     * Reads every block inside an arena's bounds from a temporary copy of its world.
+     * @param arena Arena to read.
+     * @return Future completed with the arena's blocks.
+     */
+    private CompletableFuture<ArenaBlocks> read(Arena arena) {
+        String name = UUID.randomUUID().toString();
+        ArenaBounds bounds = arena.bounds();
+
+        CompletableFuture<ArenaBlocks> blocks = arena.arenaFile().instantiate(name, arena.writableRegions(), false)
+                .thenCompose(file -> plugin.gameManager().loadWorld(name))
+                .thenCompose(source -> read(source, bounds))
+                .whenComplete((result, exception) -> {
+                    plugin.gameManager().discardWorld(name);
+
+                    if(exception != null) {
+                        plugin.getLogger().severe("Could not read arena " + arena.id() + " for the grid: " + exception);
+                        arenaBlocks.remove(arena.id());
+                    }
+                    else {
+                        plugin.getLogger().info("Read arena " + arena.id() + " for the grid (" + result.size() + " blocks)");
+                    }
+                });
+
+        return blocks;
+    }
+
+    /**
+     * Reads every non-air block inside some bounds of a world.
+     * Chunk snapshots are taken on the main thread, and read on another thread.
+     * @param source World to read.
+     * @param bounds Bounds to read.
+     * @return Future completed with the blocks.
+     */
+    private CompletableFuture<ArenaBlocks> read(World source, ArenaBounds bounds) {
+        List<ChunkSnapshot> snapshots = Collections.synchronizedList(new ArrayList<>());
+        List<int[]> chunks = new ArrayList<>();
+
+        for(int chunkX = bounds.minX() >> 4; chunkX <= bounds.maxX() >> 4; chunkX++) {
+            for(int chunkZ = bounds.minZ() >> 4; chunkZ <= bounds.maxZ() >> 4; chunkZ++) {
+                chunks.add(new int[] {chunkX, chunkZ});
+            }
+        }
+
+        int maxHeight = source.getMaxHeight();
+        return runBatched(chunks.size(), CHUNKS_PER_TICK, index -> snapshots.add(source.getChunkAt(chunks.get(index)[0], chunks.get(index)[1]).getChunkSnapshot()))
+                .thenApplyAsync(result -> ArenaBlocks.of(snapshots, bounds, maxHeight));
+    }
+
+    /**
+     * Runs an action for a range of indexes on the main thread, a limited number per tick.
+     * @param total Number of indexes.
+     * @param perTick Indexes to run per tick.
+     * @param action Action to run for each index.
+     * @return Future completed once the action has run for every index.
+     */
+    private CompletableFuture<Void> runBatched(int total, int perTick, IntConsumer action) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        new BukkitRunnable() {
+            int next = 0;
+
+            @Override
+            public void run() {
+                try {
+                    int end = Math.min(total, next + perTick);
+                    for(; next < end; next++) {
+                        action.accept(next);
+                    }
+                }
+                catch (RuntimeException exception) {
+                    cancel();
+                    future.completeExceptionally(exception);
+                    return;
+                }
+
+                if(next >= total) {
+                    cancel();
+                    future.complete(null);
+                }
+            }
+        }.runTaskTimer(plugin, 0, 1);
+
+        return future;
+    }
+
+    /**
+     * Every non-air block of an arena, at its original coordinates.
+     */
+    private static class ArenaBlocks {
+        private final int[] xs;
+        private final int[] ys;
+        private final int[] zs;
+        private final int[] ids;
+        private final byte[] data;
+
+        private ArenaBlocks(int size) {
+            this.xs = new int[size];
+            this.ys = new int[size];
+            this.zs = new int[size];
+            this.ids = new int[size];
+            this.data = new byte[size];
+        }
+
+        /**
+         * Reads the blocks inside some bounds from chunk snapshots.
+         * @param snapshots Snapshots of every chunk inside the bounds.
+         * @param bounds Bounds of the arena.
+         * @param maxHeight Height of the world the snapshots are from.
+         * @return Blocks of the arena.
+         */
+        private static ArenaBlocks of(List<ChunkSnapshot> snapshots, ArenaBounds bounds, int maxHeight) {
+            // Counts the blocks first, so the arrays only need to be allocated once.
+            int count = 0;
+            for(ChunkSnapshot snapshot : snapshots) {
+                count += visit(snapshot, bounds, maxHeight, null, 0);
+            }
+
+            ArenaBlocks blocks = new ArenaBlocks(count);
+            int next = 0;
+            for(ChunkSnapshot snapshot : snapshots) {
+                next += visit(snapshot, bounds, maxHeight, blocks, next);
+            }
+
+            return blocks;
+        }
+
+        /**
+         * Goes through the non-air blocks of a chunk inside the bounds, storing them if blocks is given.
+         * @return Number of blocks found.
+         */
+        private static int visit(ChunkSnapshot snapshot, ArenaBounds bounds, int maxHeight, ArenaBlocks blocks, int start) {
+            int found = 0;
+
+            for(int x = 0; x < 16; x++) {
+                int worldX = (snapshot.getX() << 4) + x;
+                if(worldX < bounds.minX() || worldX > bounds.maxX()) {
+                    continue;
+                }
+
+                for(int z = 0; z < 16; z++) {
+                    int worldZ = (snapshot.getZ() << 4) + z;
+                    if(worldZ < bounds.minZ() || worldZ > bounds.maxZ()) {
+                        continue;
+                    }
+
+                    for(int y = 0; y < maxHeight; y++) {
+                        int id = snapshot.getBlockTypeId(x, y, z);
+                        if(id == 0) {
+                            continue;
+                        }
+
+                        if(blocks != null) {
+                            int index = start + found;
+                            blocks.xs[index] = worldX;
+                            blocks.ys[index] = y;
+                            blocks.zs[index] = worldZ;
+                            blocks.ids[index] = id;
+                            blocks.data[index] = (byte) snapshot.getBlockData(x, y, z);
+                        }
+
+                        found++;
+                    }
+                }
+            }
+
+            return found;
+        }
+
+        private int size() {
+            return xs.length;
+        }
+    }
+}
\ No newline at end of file
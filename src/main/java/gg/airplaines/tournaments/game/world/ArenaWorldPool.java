@@ -0,0 +1,264 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.world;
+
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.arena.Arena;
+import gg.airplaines.tournaments.game.kit.Kit;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps copied and loaded arena worlds ready ahead of time,
+ * so games can start without waiting on a world copy.
+ */
+public class ArenaWorldPool {
+    private final TournamentsPlugin plugin;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final boolean enabled;
+    private final boolean recycling;
+    private final int size;
+
+    /**
+     * Creates the world pool, and starts the task that refills it.
+     * @param plugin Instance of the plugin.
+     */
+    public ArenaWorldPool(final TournamentsPlugin plugin) {
+        this.plugin = plugin;
+        this.enabled = plugin.settingsManager().getConfig().getBoolean("world-pool.enabled", true);
+        this.size = Math.max(0, plugin.settingsManager().getConfig().getInt("world-pool.size", 2));
+        this.recycling = plugin.settingsManager().getConfig().getBoolean("world-recycling", true);
+
+        // Checks once a second if any pools need another world.
+        plugin.getServer().getScheduler().runTaskTimer(plugin, this::refill, 20L, 20L);
+    }
+
+    /**
+     * Starts keeping worlds ready for an arena/kit pair.
+     * @param arena Arena to keep worlds of.
+     * @param kit Kit the worlds will be used for.
+     */
+    public void prepare(Arena arena, Kit kit) {
+        if(!enabled || size == 0) {
+            return;
+        }
+
+        pools.computeIfAbsent(key(arena, kit), key -> new Pool(arena, kit));
+    }
+
+    /**
+     * Takes a ready world for an arena/kit pair.
+     * Returns null if there isn't one, in which case the pair is prepared for next time.
+     * @param arena Arena the world should be a copy of.
+     * @param kit Kit the world will be used for.
+     * @return Loaded world, or null if the pool is empty.
+     */
+    public World take(Arena arena, Kit kit) {
+        Pool pool = pools.get(key(arena, kit));
+        World world = pool == null ? null : pool.worlds.poll();
+
+        if(world == null) {
+            misses.incrementAndGet();
+            prepare(arena, kit);
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return world;
+    }
+
+    /**
+     * Returns the world of a finished game to its arena/kit pair, so the next game can reuse it.
+     * The world must already be reset to how it was before the game.
+     * Returns false if recycling is disabled or the pool is full, in which case the world should be deleted.
+     * @param arena Arena the world is a copy of.
+     * @param kit Kit the world was used for.
+     * @param world World to return.
+     * @return Whether the world was added to the pool.
+     */
+    public boolean release(Arena arena, Kit kit, World world) {
+        if(!recycling) {
+            return false;
+        }
+
+        Pool pool = pools.computeIfAbsent(key(arena, kit), key -> new Pool(arena, kit));
+
+        if(pool.discarded || pool.worlds.size() >= Math.max(size, 1)) {
+            return false;
+        }
+
+        pool.worlds.add(world);
+        recycled.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Unloads and deletes every pooled world.
+     * Used when the event ends and when the plugin is disabled.
+     */
+    public void clear() {
+        for(Pool pool : pools.values()) {
+            pool.discarded = true;
+
+            World world;
+            while((world = pool.worlds.poll()) != null) {
+                File worldFolder = world.getWorldFolder();
+                Bukkit.unloadWorld(world, false);
+                plugin.gameManager().worldDeletion().delete(worldFolder);
+            }
+        }
+
+        pools.clear();
+    }
+
+    /**
+     * Get the number of games that started with a pooled world.
+     * @return Pool hits.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of games that had to copy their world on demand.
+     * @return Pool misses.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of game worlds that were reset and returned to a pool.
+     * @return Recycled worlds.
+     */
+    public long recycled() {
+        return recycled.get();
+    }
+
+    /**
+     * Get the number of worlds currently ready across all pools.
+     * @return Ready worlds.
+     */
+    public int readyWorlds() {
+        int ready = 0;
+
+        for(Pool pool : pools.values()) {
+            ready += pool.worlds.size();
+        }
+
+        return ready;
+    }
+
+    /**
+     * Warms at most one world per run, and only while no games are being created,
+     * so refilling never competes with a match that is starting.
+     */
+    private void refill() {
+        // Pools may still exist without warming, to hold recycled worlds.
+        if(!enabled || size == 0) {
+            return;
+        }
+
+        if(plugin.gameManager().pendingGames() > 0) {
+            return;
+        }
+
+        for(Pool pool : pools.values()) {
+            if(pool.warming.get() > 0) {
+                return;
+            }
+        }
+
+        for(Pool pool : pools.values()) {
+            if(pool.worlds.size() >= size) {
+                continue;
+            }
+
+            warm(pool);
+            return;
+        }
+    }
+
+    /**
+     * Copies and loads a new world into a pool.
+     * @param pool Pool to add the world to.
+     */
+    private void warm(Pool pool) {
+        String name = UUID.randomUUID().toString();
+        pool.warming.incrementAndGet();
+
+        pool.arena.arenaFile().instantiate(name, pool.arena.writableRegions(), pool.kit.build())
+                .thenCompose(file -> plugin.gameManager().loadWorld(name))
+                .thenAccept(world -> {
+                    pool.warming.decrementAndGet();
+
+                    // The pool was cleared while this world was being copied.
+                    if(pool.discarded) {
+                        plugin.gameManager().discardWorld(name);
+                        return;
+                    }
+
+                    pool.worlds.add(world);
+                })
+                .exceptionally(exception -> {
+                    plugin.getLogger().warning("Could not prepare a world for " + pool.arena.id() + ": " + exception);
+                    pool.warming.decrementAndGet();
+                    plugin.gameManager().discardWorld(name);
+                    return null;
+                });
+    }
+
+    private String key(Arena arena, Kit kit) {
+        return arena.id() + ":" + kit.id();
+    }
+
+    /**
+     * The ready worlds of a single arena/kit pair.
+     */
+    private static class Pool {
+        private final Arena arena;
+        private final Kit kit;
+        private final Queue<World> worlds = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger warming = new AtomicInteger();
+        private volatile boolean discarded = false;
+
+        private Pool(Arena arena, Kit kit) {
+            this.arena = arena;
+            this.kit = kit;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.world;
+
+import gg.airplaines.tournaments.TournamentsPlugin;
+import org.bukkit.World;
+import org.bukkit.WorldCreator;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings every game world is created with.
+ * Game worlds are thrown away after the game, so they never save,
+ * never generate terrain or structures outside the arena, and don't keep spawn chunks loaded.
+ */
+public class GameWorldProfile {
+    private final Map<String, String> gameRules = new LinkedHashMap<>();
+
+    /**
+     * Creates the profile, loading its game rules from the config.
+     * @param plugin Instance of the plugin.
+     */
+    public GameWorldProfile(final TournamentsPlugin plugin) {
+        ConfigurationSection section = plugin.settingsManager().getConfig().getConfigurationSection("game-worlds.gamerules");
+
+        if(section == null) {
+            return;
+        }
+
+        for(String gameRule : section.getKeys(false)) {
+            gameRules.put(gameRule, section.getString(gameRule));
+        }
+    }
+
+    /**
+     * Get the world creator used to load a game world.
+     * @param name Name of the world.
+     * @return World creator for the world.
+     */
+    public WorldCreator creator(String name) {
+        return new WorldCreator(name)
+                .generator(new VoidChunkGenerator())
+                .generateStructures(false);
+    }
+
+    /**
+     * Check if a world was created with this profile.
+     * @param world World to check.
+     * @return Whether the world is a game world.
+     */
+    public boolean isProfiled(World world) {
+        return world.getGenerator() instanceof VoidChunkGenerator;
+    }
+
+    /**
+     * Applies the settings that must be set while a game world is being created, before its spawn area is prepared.
+     * Called from the world's WorldInitEvent, since the spawn area is loaded before createWorld returns.
+     * @param world World being created.
+     */
+    public void initialize(World world) {
+        world.setKeepSpawnInMemory(false);
+    }
+
+    /**
+     * Applies the rest of the profile to a game world that was just loaded.
+     * Autosave must stay off, since linked region files are shared with the arena.
+     * @param world World to apply the profile to.
+     */
+    public void apply(World world) {
+        world.setAutoSave(false);
+        world.setSpawnFlags(false, false);
+
+        world.setStorm(false);
+        world.setThundering(false);
+        world.setWeatherDuration(Integer.MAX_VALUE);
+
+        gameRules.forEach(world::setGameRuleValue);
+    }
+}
\ No newline at end of file
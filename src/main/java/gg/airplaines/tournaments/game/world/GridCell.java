@@ -0,0 +1,47 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.world;
+
+import org.bukkit.Location;
+
+/**
+ * A square area of the grid world that holds a single game.
+ * @param index Position of the cell in the grid.
+ * @param minX Lowest x coordinate of the cell.
+ * @param minZ Lowest z coordinate of the cell.
+ * @param size Width of the cell, in blocks.
+ */
+public record GridCell(int index, int minX, int minZ, int size) {
+    /**
+     * Check if a location is inside the cell.
+     * Does not check the world of the location.
+     * @param location Location to check.
+     * @return Whether the location is inside.
+     */
+    public boolean contains(Location location) {
+        return location.getBlockX() >= minX && location.getBlockX() < minX + size
+                && location.getBlockZ() >= minZ && location.getBlockZ() < minZ + size;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,257 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.world;
+
+import gg.airplaines.tournaments.TournamentsPlugin;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes game world folders on a single background thread.
+ * Deletions are queued in a bounded queue and throttled, so many games ending at once can't saturate the disk.
+ * Anything left behind, from a full queue or a crash, is swept up the next time the plugin starts.
+ */
+public class WorldDeletionService {
+    private final TournamentsPlugin plugin;
+    private final BlockingQueue<File> queue;
+    private final long bytesPerSecond;
+    private final AtomicLong bytesReclaimed = new AtomicLong();
+    private final AtomicLong linksRemoved = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * Creates the deletion service, and starts its worker thread.
+     * @param plugin Instance of the plugin.
+     */
+    public WorldDeletionService(final TournamentsPlugin plugin) {
+        this.plugin = plugin;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, plugin.settingsManager().getConfig().getInt("world-deletion.queue-size", 64)));
+        this.bytesPerSecond = Math.max(0, plugin.settingsManager().getConfig().getLong("world-deletion.max-megabytes-per-second", 32)) * 1024 * 1024;
+
+        this.worker = new Thread(this::run, "Tournaments World Deletion");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues a world folder to be deleted.
+     * The world must already be unloaded.
+     * If the queue is full, the folder is left for the startup sweep.
+     * @param folder World folder to delete.
+     * @return Whether the folder was queued.
+     */
+    public boolean delete(File folder) {
+        if(!running || !queue.offer(folder)) {
+            plugin.getLogger().warning("Could not queue " + folder.getName() + " for deletion. It will be removed on the next startup.");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Queues every game world folder left behind in the world container.
+     * Game worlds are named after a uuid, so any unloaded folder with a uuid name is stale.
+     * @return Number of folders queued.
+     */
+    public int sweep() {
+        File[] folders = Bukkit.getWorldContainer().listFiles(File::isDirectory);
+
+        if(folders == null) {
+            return 0;
+        }
+
+        int swept = 0;
+        for(File folder : folders) {
+            if(!isGameWorldName(folder.getName()) || Bukkit.getWorld(folder.getName()) != null) {
+                continue;
+            }
+
+            if(delete(folder)) {
+                swept++;
+            }
+        }
+
+        if(swept > 0) {
+            plugin.getLogger().info("Removing " + swept + " stale game worlds.");
+        }
+
+        return swept;
+    }
+
+    /**
+     * Get the number of folders waiting to be deleted.
+     * @return Deletion queue depth.
+     */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Get the total size of every file deleted so far.
+     * @return Bytes reclaimed.
+     */
+    public long bytesReclaimed() {
+        return bytesReclaimed.get();
+    }
+
+    /**
+     * Get the number of deleted files that were hard links to data still used elsewhere.
+     * These free no space, so they aren't counted in the bytes reclaimed.
+     * @return Links removed.
+     */
+    public long linksRemoved() {
+        return linksRemoved.get();
+    }
+
+    /**
+     * Stops the worker thread. Folders still queued are left for the startup sweep.
+     * Used when the plugin is disabled.
+     */
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while(running) {
+            File folder;
+            try {
+                folder = queue.take();
+            }
+            catch (InterruptedException exception) {
+                return;
+            }
+
+            try {
+                deleteFolder(folder.toPath());
+            }
+            catch (IOException exception) {
+                plugin.getLogger().warning("Could not delete " + folder.getName() + ": " + exception);
+            }
+        }
+    }
+
+    /**
+     * Deletes a folder and its contents, sleeping whenever deletion gets ahead of the rate limit.
+     * @param folder Folder to delete.
+     * @throws IOException If a file could not be deleted.
+     */
+    private void deleteFolder(Path folder) throws IOException {
+        if(!Files.exists(folder)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicLong deleted = new AtomicLong();
+
+        Files.walkFileTree(folder, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                // Region files linked from the arena world free nothing, so they don't count towards the rate limit.
+                boolean lastLink = isLastLink(file);
+                Files.deleteIfExists(file);
+
+                if(lastLink) {
+                    deleted.addAndGet(attributes.size());
+                    bytesReclaimed.addAndGet(attributes.size());
+                    throttle(start, deleted.get());
+                }
+                else {
+                    linksRemoved.incrementAndGet();
+                }
+                return running ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException exception) throws IOException {
+                if(exception != null) {
+                    throw exception;
+                }
+
+                Files.deleteIfExists(directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Sleeps until the bytes deleted since the start are within the rate limit.
+     * @param start When deletion of the current folder started, in nanoseconds.
+     * @param deleted Bytes deleted since then.
+     */
+    private void throttle(long start, long deleted) {
+        if(bytesPerSecond == 0) {
+            return;
+        }
+
+        long allowedAt = start + deleted * 1_000_000_000L / bytesPerSecond;
+        long wait = allowedAt - System.nanoTime();
+
+        if(wait <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Check if a file is the last link to its data, so deleting it frees space.
+     * Assumes it is if the file system can't tell.
+     * @param file File to check.
+     * @return Whether the file is the last link.
+     */
+    private boolean isLastLink(Path file) {
+        try {
+            return ((Number) Files.getAttribute(file, "unix:nlink")).intValue() <= 1;
+        }
+        catch (IOException | UnsupportedOperationException | IllegalArgumentException exception) {
+            return true;
+        }
+    }
+
+    private boolean isGameWorldName(String name) {
+        try {
+            return UUID.fromString(name).toString().equals(name);
+        }
+        catch (IllegalArgumentException exception) {
+            return false;
+        }
+    }
+}
\ No newline at end of file
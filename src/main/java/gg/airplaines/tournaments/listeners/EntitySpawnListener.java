@@ -42,11 +42,16 @@ public class EntitySpawnListener implements Listener {
 
     @EventHandler
     public void onEntitySpawn(EntitySpawnEvent event) {
+        // Ignore worlds that aren't used by a game.
+        if(!plugin.gameManager().isGameWorld(event.getLocation().getWorld())) {
+            return;
+        }
+
         if(!(event.getEntity() instanceof FallingBlock fallingBlock)) {
             return;
         }
 
-        Game game = plugin.gameManager().game(fallingBlock.getWorld());
+        Game game = plugin.gameManager().game(fallingBlock.getLocation());
 
         if(game == null) {
             return;
@@ -51,9 +51,19 @@ public class PlayerMoveListener implements Listener {
             return;
         }
 
+        // Keeps players of grid games from wandering into other games. Leaving the cell counts as falling into the void.
+        if(game.cell() != null && !game.cell().contains(event.getTo())) {
+            if(game.gameState() != GameState.COUNTDOWN && game.gameState() != GameState.END && !game.spectators().contains(player)) {
+                game.playerKilled(player);
+            }
+
+            player.teleport(game.spectatorSpawn());
+            return;
+        }
+
         if(game.kit().waterKills()) {
             if(game.spectators().contains(player)) {
-                player.teleport(game.arena().spectatorSpawn(game.world()));
+                player.teleport(game.spectatorSpawn());
                 return;
             }
 
@@ -68,17 +78,17 @@ public class PlayerMoveListener implements Listener {
 
         if(player.getLocation().getY() < game.kit().voidLevel()) {
             if(game.gameState() == GameState.COUNTDOWN || game.gameState() == GameState.END) {
-                player.teleport(game.arena().spectatorSpawn(game.world()));
+                player.teleport(game.spectatorSpawn());
                 return;
             }
 
             if(game.spectators().contains(player)) {
-                player.teleport(game.arena().spectatorSpawn(game.world()));
+                player.teleport(game.spectatorSpawn());
                 return;
             }
 
             game.playerKilled(player);
-            player.teleport(game.arena().spectatorSpawn(game.world()));
+            player.teleport(game.spectatorSpawn());
         }
     }
 }
\ No newline at end of file
@@ -40,6 +40,11 @@ public class ProjectileLaunchListener implements Listener {
 
     @EventHandler
     public void onLaunch(ProjectileLaunchEvent event) {
+        // Ignore worlds that aren't used by a game.
+        if(!plugin.gameManager().isGameWorld(event.getEntity().getWorld())) {
+            return;
+        }
+
         if(!(event.getEntity().getShooter() instanceof Player player)) {
             return;
         }
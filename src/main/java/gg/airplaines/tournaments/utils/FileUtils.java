@@ -24,49 +24,9 @@
  */
 package gg.airplaines.tournaments.utils;
 
-import java.io.*;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.File;
 
 public class FileUtils {
-    /**
-     * Copies a folder and it's contents from one location to another.
-     * @param source File to be copied.
-     * @param target Location to copy it to.
-     */
-    public static void copyFileStructure(File source, File target){
-        try {
-            ArrayList<String> ignore = new ArrayList<>(Arrays.asList("uid.dat", "session.lock"));
-            if(!ignore.contains(source.getName())) {
-                if(source.isDirectory()) {
-                    if(!target.exists())
-                        if (!target.mkdirs())
-                            throw new IOException("Couldn't create world directory!");
-                    String files[] = source.list();
-                    for (String file : files) {
-                        File srcFile = new File(source, file);
-                        File destFile = new File(target, file);
-                        copyFileStructure(srcFile, destFile);
-                    }
-                }
-                else {
-                    InputStream in = new FileInputStream(source);
-                    OutputStream out = new FileOutputStream(target);
-                    byte[] buffer = new byte[1024];
-                    int length;
-                    while ((length = in.read(buffer)) > 0)
-                        out.write(buffer, 0, length);
-                    in.close();
-                    out.flush();
-                    out.close();
-                }
-            }
-        }
-        catch(IOException exception) {
-            throw new RuntimeException(exception);
-        }
-    }
-
     /**
      * Deletes a given folder and it's contents.
      * @param path Folder to delete.
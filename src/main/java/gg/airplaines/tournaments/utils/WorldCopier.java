@@ -0,0 +1,258 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies world folders using file channels.
+ * Region files, which make up most of a world, are copied in parallel on a small bounded executor,
+ * or hard-linked when the copy will never write to them.
+ */
+public class WorldCopier {
+    /**
+     * Files that belong to a single loaded world, and must never be copied.
+     */
+    private static final Set<String> IGNORED = Set.of("uid.dat", "session.lock");
+
+    private static final int THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final ExecutorService executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(256), new CopierThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+
+    /**
+     * Copies a world folder and its contents to another location.
+     * Blocks until every file has been copied, so this should never be called on the main thread.
+     * @param source World folder to copy.
+     * @param target Location to copy it to.
+     * @return Statistics about the copy.
+     */
+    public static CopyResult copy(File source, File target) {
+        return copyWorld(source, target, file -> true, file -> false);
+    }
+
+    /**
+     * Copies only the files of a world folder that match a filter.
+     * Blocks until every file has been copied, so this should never be called on the main thread.
+     * @param source World folder to copy.
+     * @param target Location to copy it to.
+     * @param included Files that should be copied.
+     * @return Statistics about the copy.
+     */
+    public static CopyResult copy(File source, File target, Predicate<Path> included) {
+        return copyWorld(source, target, included, file -> false);
+    }
+
+    /**
+     * Creates a copy of a world folder that hard-links every region file the server won't write to.
+     * Everything else is physically copied. If the file system does not support hard links,
+     * the rest of the world is copied normally instead.
+     * The world created from the copy must not save chunks, since linked region files are shared with the source.
+     * @param source World folder to copy.
+     * @param target Location to copy it to.
+     * @param writableRegions Names of the region files the server may write to.
+     * @return Statistics about the copy.
+     */
+    public static CopyResult link(File source, File target, Set<String> writableRegions) {
+        return copyWorld(source, target, file -> true, file -> isRegionFile(file) && !writableRegions.contains(file.getFileName().toString()));
+    }
+
+    /**
+     * Copies a world folder, hard-linking the files that match a filter where possible.
+     * @param source World folder to copy.
+     * @param target Location to copy it to.
+     * @param included Files that should be copied at all.
+     * @param linkable Files that can be linked instead of copied.
+     * @return Statistics about the copy.
+     */
+    private static CopyResult copyWorld(File source, File target, Predicate<Path> included, Predicate<Path> linkable) {
+        long start = System.nanoTime();
+        Path sourcePath = source.toPath();
+        Path targetPath = target.toPath();
+        AtomicLong bytes = new AtomicLong();
+        AtomicInteger files = new AtomicInteger();
+        AtomicInteger linked = new AtomicInteger();
+        AtomicBoolean linksSupported = new AtomicBoolean(true);
+        List<Future<?>> regionCopies = new ArrayList<>();
+
+        try {
+            Files.walkFileTree(sourcePath, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                    if(IGNORED.contains(dir.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+
+                    Files.createDirectories(targetPath.resolve(sourcePath.relativize(dir)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    if(IGNORED.contains(file.getFileName().toString()) || !included.test(file)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    Path destination = targetPath.resolve(sourcePath.relativize(file));
+                    files.incrementAndGet();
+
+                    if(linksSupported.get() && linkable.test(file)) {
+                        try {
+                            Files.createLink(destination, file);
+                            linked.incrementAndGet();
+                            return FileVisitResult.CONTINUE;
+                        }
+                        catch (UnsupportedOperationException | IOException | SecurityException exception) {
+                            // Stops trying to link for the rest of the copy.
+                            linksSupported.set(false);
+                        }
+                    }
+
+                    // Region files are large, so they are copied in parallel.
+                    if(isRegionFile(file)) {
+                        regionCopies.add(executor.submit(() -> {
+                            bytes.addAndGet(copyFile(file, destination));
+                            return null;
+                        }));
+                    }
+                    else {
+                        bytes.addAndGet(copyFile(file, destination));
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            // Waits for all region files to finish.
+            for(Future<?> regionCopy : regionCopies) {
+                regionCopy.get();
+            }
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        catch (ExecutionException exception) {
+            if(exception.getCause() instanceof IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+
+            throw new RuntimeException(exception.getCause());
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(exception);
+        }
+
+        return new CopyResult(bytes.get(), files.get(), linked.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Copies a single file using a channel transfer.
+     * @param source File to copy.
+     * @param target Location to copy it to.
+     * @return Number of bytes copied.
+     * @throws IOException If the file could not be copied.
+     */
+    public static long copyFile(Path source, Path target) throws IOException {
+        try(FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+            FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+
+            // transferTo is allowed to copy less than requested, so loop until done.
+            while(position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+
+            return size;
+        }
+    }
+
+    /**
+     * Check if a file belongs to a single loaded world, and should never be copied.
+     * @param name Name of the file.
+     * @return Whether the file is ignored.
+     */
+    public static boolean isIgnored(String name) {
+        return IGNORED.contains(name);
+    }
+
+    /**
+     * Check if a file is an anvil or mcregion region file.
+     * @param file File to check.
+     * @return Whether it is a region file.
+     */
+    public static boolean isRegionFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".mca") || name.endsWith(".mcr");
+    }
+
+    /**
+     * Stops the copy threads. Called when the plugin is disabled.
+     */
+    public static void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * The outcome of a world copy.
+     * @param bytes Number of bytes physically copied.
+     * @param files Number of files in the copy, including linked files.
+     * @param linked Number of files that were hard-linked.
+     * @param durationMillis How long the copy took, in milliseconds.
+     */
+    public record CopyResult(long bytes, int files, int linked, long durationMillis) {
+        @Override
+        public String toString() {
+            return files + " files (" + linked + " linked), " + (bytes / 1024) + " KB in " + durationMillis + " ms";
+        }
+    }
+
+    /**
+     * Creates named daemon threads, so copies never hold up a server shutdown.
+     */
+    private static class CopierThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Tournaments World Copier #" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
\ No newline at end of file
@@ -35,6 +35,7 @@ import org.bukkit.scoreboard.Team;
 import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *
@@ -44,6 +45,8 @@ import java.util.UUID;
 public class ScoreHelper {
 
     private static HashMap<UUID, ScoreHelper> players = new HashMap<>();
+    private static final AtomicLong renders = new AtomicLong();
+    private static final AtomicLong skips = new AtomicLong();
 
     public static boolean hasScore(Player player) {
         return players.containsKey(player.getUniqueId());
@@ -61,9 +64,31 @@ public class ScoreHelper {
         return players.remove(player.getUniqueId());
     }
 
+    /**
+     * Get the number of lines and titles that were sent to players.
+     * @return Number of renders.
+     */
+    public static long renders() {
+        return renders.get();
+    }
+
+    /**
+     * Get the number of lines and titles that were skipped, because they hadn't changed.
+     * @return Number of skips.
+     */
+    public static long skips() {
+        return skips.get();
+    }
+
     private Scoreboard scoreboard;
     private Objective sidebar;
 
+    // Last rendered state of each slot, so lines that haven't changed aren't sent again.
+    private final Team[] teams = new Team[16];
+    private final String[] lines = new String[16];
+    private final boolean[] shown = new boolean[16];
+    private String title;
+
     private ScoreHelper(Player player) {
         scoreboard = Bukkit.getScoreboardManager().getNewScoreboard();
         sidebar = scoreboard.registerNewObjective("sidebar", "dummy");
@@ -72,34 +97,51 @@ public class ScoreHelper {
         for(int i=1; i<=15; i++) {
             Team team = scoreboard.registerNewTeam("SLOT_" + i);
             team.addEntry(genEntry(i));
+            teams[i] = team;
         }
         player.setScoreboard(scoreboard);
         players.put(player.getUniqueId(), this);
     }
 
     public void setTitle(String title) {
+        if(title.equals(this.title)) {
+            skips.incrementAndGet();
+            return;
+        }
+
+        this.title = title;
+        renders.incrementAndGet();
+
         title = ChatColor.translateAlternateColorCodes('&', title);
         sidebar.setDisplayName(title.length()>32 ? title.substring(0, 32) : title);
     }
 
     public void setSlot(int slot, String text) {
-        Team team = scoreboard.getTeam("SLOT_" + slot);
-        String entry = genEntry(slot);
-        if(!scoreboard.getEntries().contains(entry)) {
-            sidebar.getScore(entry).setScore(slot);
+        if(!shown[slot]) {
+            sidebar.getScore(genEntry(slot)).setScore(slot);
+            shown[slot] = true;
         }
 
+        // The prefix and suffix are only sent when the line changed.
+        if(text.equals(lines[slot])) {
+            skips.incrementAndGet();
+            return;
+        }
+
+        lines[slot] = text;
+        renders.incrementAndGet();
+
         text = ChatColor.translateAlternateColorCodes('&', text);
         String pre = getFirstSplit(text);
         String suf = getFirstSplit(ChatColor.getLastColors(pre) + getSecondSplit(text));
-        team.setPrefix(pre);
-        team.setSuffix(suf);
+        teams[slot].setPrefix(pre);
+        teams[slot].setSuffix(suf);
     }
 
     public void removeSlot(int slot) {
-        String entry = genEntry(slot);
-        if(scoreboard.getEntries().contains(entry)) {
-            scoreboard.resetScores(entry);
+        if(shown[slot]) {
+            scoreboard.resetScores(genEntry(slot));
+            shown[slot] = false;
         }
     }
 
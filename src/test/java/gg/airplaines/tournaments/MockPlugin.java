@@ -0,0 +1,84 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments;
+
+import gg.airplaines.tournaments.game.kit.Kit;
+import gg.airplaines.tournaments.game.tournament.BestOf;
+import gg.airplaines.tournaments.game.tournament.DuelEventManager;
+import gg.airplaines.tournaments.game.tournament.EliminationType;
+import gg.airplaines.tournaments.game.tournament.TeamType;
+import gg.airplaines.tournaments.settings.ConfigManager;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Creates plugins for tests, since a real one can only be loaded by a server.
+ * The config starts out empty, so every setting uses its default unless a test sets it.
+ */
+public final class MockPlugin {
+    private MockPlugin() {
+    }
+
+    /**
+     * Creates a plugin running a 1v1 event for the Sumo kit, hosted by "Host".
+     * @param dataFolder Folder the plugin keeps its files in.
+     * @param eventType Elimination type of the event.
+     * @return Mocked plugin.
+     */
+    public static TournamentsPlugin create(File dataFolder, EliminationType eventType) {
+        TournamentsPlugin plugin = mock(TournamentsPlugin.class);
+
+        ConfigManager settingsManager = mock(ConfigManager.class);
+        when(settingsManager.getConfig()).thenReturn(new YamlConfiguration());
+        when(plugin.settingsManager()).thenReturn(settingsManager);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+
+        // Warnings are expected in most tests, like retries against a failing Challonge, so only errors are shown.
+        Logger logger = Logger.getLogger("Tournaments");
+        logger.setLevel(Level.SEVERE);
+        when(plugin.getLogger()).thenReturn(logger);
+
+        Kit kit = mock(Kit.class);
+        when(kit.id()).thenReturn("sumo");
+        when(kit.name()).thenReturn("Sumo");
+
+        DuelEventManager duelEventManager = mock(DuelEventManager.class);
+        when(duelEventManager.hostName()).thenReturn("Host");
+        when(duelEventManager.kit()).thenReturn(kit);
+        when(duelEventManager.eventType()).thenReturn(eventType);
+        when(duelEventManager.bestOf()).thenReturn(BestOf.THREE);
+        when(duelEventManager.teamSize()).thenReturn(TeamType.ONE_V_ONE);
+        when(duelEventManager.hostPlaying()).thenReturn(true);
+        when(plugin.duelEventManager()).thenReturn(duelEventManager);
+
+        return plugin;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament;
+
+import gg.airplaines.tournaments.MockPlugin;
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketMatch;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketResult;
+import gg.airplaines.tournaments.game.tournament.bracket.Brackets;
+import gg.airplaines.tournaments.game.tournament.bracket.LocalBracketProvider;
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+import gg.airplaines.tournaments.game.tournament.team.EventTeamManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventCheckpointTest {
+    @TempDir
+    File dataFolder;
+
+    private TournamentsPlugin plugin;
+    private EventCheckpoint checkpoint;
+
+    @BeforeEach
+    void setUp() {
+        plugin = MockPlugin.create(dataFolder, EliminationType.DOUBLE_ELIMINATION);
+        checkpoint = new EventCheckpoint(plugin);
+    }
+
+    @Test
+    void resumesTheSavedBracket() {
+        UUID eventUUID = UUID.randomUUID();
+        List<EventTeam> teams = Brackets.teams(13);
+        teams.get(0).challongeID(42);
+
+        LocalBracketProvider bracket = new LocalBracketProvider(EliminationType.DOUBLE_ELIMINATION, true);
+        bracket.create(teams);
+        Random random = new Random(13);
+        Brackets.play(bracket, match -> random.nextBoolean() ? match.team1() : match.team2(), 15);
+
+        assertTrue(checkpoint.save(eventUUID, teams, bracket));
+        EventCheckpoint.Checkpoint loaded = new EventCheckpoint(plugin).load();
+
+        assertNotNull(loaded);
+        assertEquals(eventUUID, loaded.uuid());
+        assertEquals("Host", loaded.hostName());
+        assertEquals("sumo", loaded.kit());
+        assertEquals(EliminationType.DOUBLE_ELIMINATION, loaded.eventType());
+        assertEquals(BestOf.THREE, loaded.bestOf());
+        assertEquals(TeamType.ONE_V_ONE, loaded.teamSize());
+        assertTrue(loaded.hostPlaying());
+        assertNull(loaded.url());
+
+        // Teams come back in seed order, the same way DuelEvent recreates them.
+        EventTeamManager teamManager = new EventTeamManager();
+        List<EventTeam> resumedTeams = new ArrayList<>();
+        for(int seed = 0; seed < teams.size(); seed++) {
+            EventCheckpoint.SavedTeam team = loaded.teams().get(seed);
+            assertEquals(teams.get(seed).name(), team.name());
+            assertEquals(teams.get(seed).playerUUIDs(), team.players());
+            assertEquals(teams.get(seed).challongeID(), team.challongeID());
+
+            resumedTeams.add(teamManager.createTeam(team.name(), team.players(), team.challongeID()));
+        }
+
+        List<BracketResult> results = new ArrayList<>();
+        for(EventCheckpoint.SavedResult result : loaded.results()) {
+            results.add(new BracketResult(result.match(), resumedTeams.get(result.winner()), result.winnerScore(), result.loserScore(), result.forfeited()));
+        }
+
+        LocalBracketProvider resumed = new LocalBracketProvider(EliminationType.DOUBLE_ELIMINATION, true);
+        resumed.resume(resumedTeams, results, loaded.url());
+
+        List<BracketMatch> matches = bracket.matches();
+        List<BracketMatch> resumedMatches = resumed.matches();
+        for(int index = 0; index < matches.size(); index++) {
+            BracketMatch match = matches.get(index);
+            BracketMatch resumedMatch = resumedMatches.get(index);
+
+            assertEquals(match.state(), resumedMatch.state(), "State of match " + match.id());
+            assertEquals(match.scores(), resumedMatch.scores(), "Scores of match " + match.id());
+            assertEquals(teams.indexOf(match.winner()), resumedTeams.indexOf(resumedMatch.winner()), "Winner of match " + match.id());
+        }
+    }
+
+    @Test
+    void skipsUnchangedSnapshots() {
+        List<EventTeam> teams = Brackets.teams(4);
+        LocalBracketProvider bracket = new LocalBracketProvider(EliminationType.DOUBLE_ELIMINATION, true);
+        bracket.create(teams);
+
+        UUID eventUUID = UUID.randomUUID();
+        File file = new File(dataFolder, "event.yml");
+        assertTrue(checkpoint.save(eventUUID, teams, bracket));
+        assertTrue(file.delete());
+
+        assertTrue(checkpoint.save(eventUUID, teams, bracket));
+        assertFalse(file.exists(), "A snapshot that didn't change shouldn't be written again.");
+
+        Brackets.play(bracket, Brackets.favourites(teams), 1);
+        assertTrue(checkpoint.save(eventUUID, teams, bracket));
+        assertTrue(file.exists());
+
+        checkpoint.delete();
+        assertFalse(file.exists());
+        assertNull(checkpoint.load());
+    }
+
+    @Test
+    void movesUnreadableSnapshotsAside() throws IOException {
+        Files.writeString(new File(dataFolder, "event.yml").toPath(), "event: not-a-uuid\n", StandardCharsets.UTF_8);
+
+        assertNull(checkpoint.load());
+        assertFalse(new File(dataFolder, "event.yml").exists());
+        assertTrue(new File(dataFolder, "event.yml.old").exists());
+    }
+}
\ No newline at end of file
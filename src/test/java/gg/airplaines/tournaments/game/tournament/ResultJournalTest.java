@@ -0,0 +1,147 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament;
+
+import gg.airplaines.tournaments.MockPlugin;
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketMatch;
+import gg.airplaines.tournaments.game.tournament.bracket.Brackets;
+import gg.airplaines.tournaments.game.tournament.bracket.LocalBracketProvider;
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultJournalTest {
+    @TempDir
+    File dataFolder;
+
+    private TournamentsPlugin plugin;
+    private List<EventTeam> teams;
+    private File file;
+
+    @BeforeEach
+    void setUp() {
+        plugin = MockPlugin.create(dataFolder, EliminationType.DOUBLE_ELIMINATION);
+        teams = Brackets.teams(8);
+        file = new File(dataFolder, "results.journal");
+    }
+
+    @Test
+    void reportsRecordedResults() {
+        UUID eventUUID = UUID.randomUUID();
+        LocalBracketProvider bracket = bracket();
+        List<BracketMatch> firstRound = bracket.openMatches();
+        AtomicInteger persisted = new AtomicInteger();
+
+        ResultJournal journal = new ResultJournal(plugin, eventUUID, bracket, () -> persisted.incrementAndGet() > 0, () -> {});
+        for(BracketMatch match : firstRound) {
+            journal.record(match, match.team1(), 2, 0, false);
+        }
+        journal.close(true);
+
+        assertTrue(firstRound.stream().allMatch(match -> match.state() == BracketMatch.State.COMPLETE && match.winner().equals(match.team1())));
+        assertEquals(0, journal.pendingResults());
+        assertTrue(persisted.get() > 0);
+        assertFalse(file.exists(), "Journal should be deleted once every result was saved.");
+    }
+
+    @Test
+    void replaysResultsThatWereNeverSaved() {
+        UUID eventUUID = UUID.randomUUID();
+        LocalBracketProvider bracket = bracket();
+        List<BracketMatch> firstRound = bracket.openMatches();
+
+        // The bracket can't be saved, so none of the results are marked done.
+        ResultJournal journal = new ResultJournal(plugin, eventUUID, bracket, () -> false, () -> {});
+        for(BracketMatch match : firstRound) {
+            journal.record(match, match.team2(), 2, 1, false);
+        }
+        journal.close(true);
+        assertTrue(file.exists(), "Journal should be kept while results aren't saved.");
+
+        LocalBracketProvider resumed = bracket();
+        ResultJournal replayed = new ResultJournal(plugin, eventUUID, resumed, () -> true, () -> {});
+        assertEquals(firstRound.size(), replayed.pendingResults());
+        replayed.flush();
+        replayed.close(true);
+
+        for(BracketMatch match : resumed.matches().subList(0, firstRound.size())) {
+            assertEquals(BracketMatch.State.COMPLETE, match.state());
+            assertEquals(match.team2(), match.winner());
+            assertEquals("1-2", match.scores());
+        }
+        assertFalse(file.exists());
+    }
+
+    @Test
+    void skipsResultsThatWereSaved() throws IOException {
+        UUID eventUUID = UUID.randomUUID();
+        LocalBracketProvider bracket = bracket();
+
+        ResultJournal journal = new ResultJournal(plugin, eventUUID, bracket, () -> true, () -> {});
+        journal.record(bracket.openMatches().get(0), bracket.openMatches().get(0).team1(), 2, 0, false);
+        journal.close(false);
+
+        // A crash can leave a half written line at the end.
+        Files.writeString(file.toPath(), "R 2 2", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        ResultJournal reopened = new ResultJournal(plugin, eventUUID, bracket(), () -> true, () -> {});
+        assertEquals(0, reopened.pendingResults());
+        reopened.close(true);
+    }
+
+    @Test
+    void archivesResultsOfAnotherEvent() {
+        LocalBracketProvider bracket = bracket();
+
+        ResultJournal journal = new ResultJournal(plugin, UUID.randomUUID(), bracket, () -> false, () -> {});
+        journal.record(bracket.openMatches().get(0), bracket.openMatches().get(0).team1(), 2, 0, false);
+        journal.close(false);
+
+        ResultJournal other = new ResultJournal(plugin, UUID.randomUUID(), bracket(), () -> true, () -> {});
+        assertEquals(0, other.pendingResults());
+        other.close(true);
+
+        assertTrue(new File(dataFolder, "results.journal.old").exists());
+    }
+
+    private LocalBracketProvider bracket() {
+        LocalBracketProvider bracket = new LocalBracketProvider(EliminationType.DOUBLE_ELIMINATION, true);
+        bracket.create(teams);
+        return bracket;
+    }
+}
\ No newline at end of file
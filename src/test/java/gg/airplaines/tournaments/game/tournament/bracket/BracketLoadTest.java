@@ -0,0 +1,138 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.bracket;
+
+import gg.airplaines.tournaments.MockPlugin;
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.tournament.EliminationType;
+import gg.airplaines.tournaments.game.tournament.challonge.ChallongeClient;
+import gg.airplaines.tournaments.game.tournament.challonge.FakeChallonge;
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Plays large brackets through the local bracket alone, and through the Challonge mirror against a slow, unreliable Challonge.
+ * Prints how long each took and how many calls the mirror made, so changes to either can be compared.
+ */
+class BracketLoadTest {
+    /**
+     * Slowest a fake Challonge call takes, in milliseconds.
+     */
+    private static final long LATENCY = 4;
+
+    /**
+     * Chance of a fake Challonge call failing.
+     */
+    private static final double FAILURE_RATE = 0.05;
+
+    @TempDir
+    File dataFolder;
+
+    @ParameterizedTest
+    @MethodSource("brackets")
+    void playsLocalBracket(EliminationType eliminationType, int size) {
+        List<EventTeam> teams = Brackets.teams(size);
+
+        long start = System.nanoTime();
+        LocalBracketProvider bracket = new LocalBracketProvider(eliminationType, true);
+        bracket.create(teams);
+        List<BracketResult> results = Brackets.play(bracket, winners(size));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(bracket.isComplete());
+        assertEquals(size, bracket.standings().size());
+        System.out.printf("Local %s, %d teams: %d results in %dms%n", eliminationType, size, results.size(), elapsed);
+    }
+
+    @ParameterizedTest
+    @MethodSource("brackets")
+    void mirrorsBracketToChallonge(EliminationType eliminationType, int size) throws Exception {
+        TournamentsPlugin plugin = MockPlugin.create(dataFolder, eliminationType);
+        FileConfiguration config = plugin.settingsManager().getConfig();
+        config.set("challonge.rate-limit", 0);
+        config.set("challonge.threads", 8);
+        config.set("challonge.retry.max-attempts", 10);
+        config.set("challonge.retry.base-delay", 5);
+        config.set("challonge.retry.max-delay", 100);
+        config.set("challonge.retry.budget", 50);
+
+        FakeChallonge challonge = new FakeChallonge(1, LATENCY, FAILURE_RATE, size);
+        ChallongeClient client = challonge.client(plugin);
+        when(plugin.challongeClient()).thenReturn(client);
+
+        try {
+            List<EventTeam> teams = Brackets.teams(size);
+
+            long start = System.nanoTime();
+            ChallongeBracketProvider bracket = new ChallongeBracketProvider(plugin, new LocalBracketProvider(eliminationType, true));
+            bracket.create(teams);
+            assertNotNull(bracket.url(), "Tournament was not created on Challonge.");
+
+            List<BracketResult> results = Brackets.play(bracket, winners(size));
+            long played = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            bracket.finish();
+            challonge.finalized().get(2, TimeUnit.MINUTES);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Challonge ends up with the same bracket, so every team finishes in the same place.
+            assertEquals(0, bracket.divergedMatches());
+            assertEquals(bracket.standings().stream().map(EventTeam::name).toList(), challonge.standings());
+
+            System.out.printf("Challonge %s, %d teams: %d results played in %dms, mirrored in %dms. "
+                            + "%d calls (%d updates, %d fetches), %d failed, %d retried, %d lookups saved.%n",
+                    eliminationType, size, results.size(), played, elapsed,
+                    challonge.totalCalls(), challonge.calls("updateMatch"), challonge.calls("getMatches"),
+                    challonge.failures(), client.retries(), bracket.mirror().apiCallsSaved());
+        }
+        finally {
+            client.shutdown();
+        }
+    }
+
+    private static Function<BracketMatch, EventTeam> winners(int size) {
+        Random random = new Random(size);
+        return match -> random.nextBoolean() ? match.team1() : match.team2();
+    }
+
+    private static Stream<Arguments> brackets() {
+        return Stream.of(EliminationType.SINGLE_ELIMINATION, EliminationType.DOUBLE_ELIMINATION)
+                .flatMap(eliminationType -> Stream.of(64, 256, 1024).map(size -> Arguments.of(eliminationType, size)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.bracket;
+
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+import gg.airplaines.tournaments.game.tournament.team.EventTeamManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Creates teams and plays out brackets for tests.
+ */
+public final class Brackets {
+    private Brackets() {
+    }
+
+    /**
+     * Creates teams of one player each, named "Team 1", "Team 2" and so on.
+     * @param count Number of teams.
+     * @return Teams, ordered by seed.
+     */
+    public static List<EventTeam> teams(int count) {
+        EventTeamManager teamManager = new EventTeamManager();
+        List<EventTeam> teams = new ArrayList<>();
+
+        for(int team = 1; team <= count; team++) {
+            teams.add(teamManager.createTeam("Team " + team, List.of(UUID.randomUUID()), null));
+        }
+
+        return teams;
+    }
+
+    /**
+     * Plays the open matches of a bracket, round after round, until it is complete or enough results are reported.
+     * Every match is marked underway first, and won 2-1.
+     * @param bracket Bracket to play.
+     * @param winner Picks the winner of a match.
+     * @param limit Most results to report.
+     * @return Reported results, in the order they were reported.
+     */
+    public static List<BracketResult> play(BracketProvider bracket, Function<BracketMatch, EventTeam> winner, int limit) {
+        List<BracketResult> results = new ArrayList<>();
+
+        while(!bracket.isComplete() && results.size() < limit) {
+            List<BracketMatch> open = bracket.openMatches();
+            if(open.isEmpty()) {
+                throw new IllegalStateException("Bracket is not complete, but has no open matches.");
+            }
+
+            for(BracketMatch match : open) {
+                if(results.size() >= limit) {
+                    break;
+                }
+
+                EventTeam matchWinner = winner.apply(match);
+                bracket.markUnderway(match);
+                if(!bracket.reportResult(match, matchWinner, 2, 1, false)) {
+                    throw new IllegalStateException("Bracket refused the result of match " + match.id() + ".");
+                }
+
+                results.add(new BracketResult(match.id(), matchWinner, 2, 1, false));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Plays a whole bracket.
+     * @param bracket Bracket to play.
+     * @param winner Picks the winner of a match.
+     * @return Reported results, in the order they were reported.
+     */
+    public static List<BracketResult> play(BracketProvider bracket, Function<BracketMatch, EventTeam> winner) {
+        return play(bracket, winner, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Picks the higher seed of a match as its winner.
+     * @param teams Teams, ordered by seed.
+     * @return Winner picker.
+     */
+    public static Function<BracketMatch, EventTeam> favourites(List<EventTeam> teams) {
+        return match -> teams.indexOf(match.team1()) < teams.indexOf(match.team2()) ? match.team1() : match.team2();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,196 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.bracket;
+
+import gg.airplaines.tournaments.game.tournament.EliminationType;
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalBracketProviderTest {
+
+    @Test
+    void seedOrderKeepsTopSeedsApart() {
+        assertArrayEquals(new int[] {1, 2}, LocalBracketProvider.seedOrder(2));
+        assertArrayEquals(new int[] {1, 8, 4, 5, 2, 7, 3, 6}, LocalBracketProvider.seedOrder(8));
+    }
+
+    @Test
+    void doubleEliminationPlacesFavouritesBySeed() {
+        List<EventTeam> teams = Brackets.teams(8);
+        LocalBracketProvider bracket = new LocalBracketProvider(EliminationType.DOUBLE_ELIMINATION, true);
+        bracket.create(teams);
+
+        Brackets.play(bracket, Brackets.favourites(teams));
+        List<EventTeam> standings = bracket.standings();
+
+        assertTrue(bracket.isComplete());
+        assertEquals(teams.subList(0, 4), standings.subList(0, 4));
+
+        // Teams knocked out in the same losers round share a place, so only the group is checked.
+        assertEquals(Set.of(teams.get(4), teams.get(5)), new HashSet<>(standings.subList(4, 6)));
+        assertEquals(Set.of(teams.get(6), teams.get(7)), new HashSet<>(standings.subList(6, 8)));
+
+        BracketMatch reset = reset(bracket);
+        assertTrue(reset.bye(), "The grand final reset should be skipped when the winners' champion wins.");
+    }
+
+    @Test
+    void losersChampionWinningTheGrandFinalForcesReset() {
+        List<EventTeam> teams = Brackets.teams(4);
+        LocalBracketProvider bracket = new LocalBracketProvider(EliminationType.DOUBLE_ELIMINATION, true);
+        bracket.create(teams);
+
+        // Seed 1 wins every match until the grand final, where seed 2 comes back from the losers bracket.
+        Brackets.play(bracket, match -> match.stage() == BracketMatch.Stage.GRAND_FINAL ? teams.get(1) : Brackets.favourites(teams).apply(match));
+
+        BracketMatch reset = reset(bracket);
+        assertFalse(reset.bye());
+        assertEquals(teams.get(1), reset.winner());
+        assertEquals(List.of(teams.get(1), teams.get(0), teams.get(2), teams.get(3)), bracket.standings());
+    }
+
+    @ParameterizedTest
+    @MethodSource("brackets")
+    void everyTeamIsEliminatedTheRightNumberOfTimes(EliminationType eliminationType, int size) {
+        List<EventTeam> teams = Brackets.teams(size);
+        LocalBracketProvider bracket = new LocalBracketProvider(eliminationType, true);
+        bracket.create(teams);
+
+        Random random = new Random(size);
+        Brackets.play(bracket, match -> random.nextBoolean() ? match.team1() : match.team2());
+
+        assertTrue(bracket.isComplete());
+
+        List<EventTeam> standings = bracket.standings();
+        assertEquals(size, standings.size());
+        assertEquals(new HashSet<>(teams), new HashSet<>(standings));
+
+        // Byes and the third place match don't knock anyone out.
+        Map<EventTeam, Integer> losses = new HashMap<>();
+        for(BracketMatch match : bracket.matches()) {
+            if(!match.bye() && match.stage() != BracketMatch.Stage.THIRD_PLACE) {
+                losses.merge(match.loser(), 1, Integer::sum);
+            }
+        }
+
+        EventTeam champion = standings.get(0);
+        int lives = eliminationType == EliminationType.DOUBLE_ELIMINATION ? 2 : 1;
+        for(EventTeam team : teams) {
+            int teamLosses = losses.getOrDefault(team, 0);
+
+            if(team.equals(champion)) {
+                assertTrue(teamLosses < lives, "Champion " + team.name() + " lost " + teamLosses + " times.");
+            }
+            else {
+                assertEquals(lives, teamLosses, team.name() + " lost the wrong number of times.");
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("brackets")
+    void resumeReplaysResults(EliminationType eliminationType, int size) {
+        List<EventTeam> teams = Brackets.teams(size);
+        LocalBracketProvider bracket = new LocalBracketProvider(eliminationType, true);
+        bracket.create(teams);
+
+        Random random = new Random(size);
+        List<BracketResult> results = Brackets.play(bracket, match -> random.nextBoolean() ? match.team1() : match.team2(), size / 2);
+
+        // Results are replayed in any order, since the journal doesn't keep them in bracket order.
+        List<BracketResult> shuffled = new ArrayList<>(results);
+        Collections.shuffle(shuffled, random);
+
+        LocalBracketProvider resumed = new LocalBracketProvider(eliminationType, true);
+        resumed.resume(teams, shuffled, null);
+
+        List<BracketMatch> matches = bracket.matches();
+        List<BracketMatch> resumedMatches = resumed.matches();
+        assertEquals(matches.size(), resumedMatches.size());
+
+        for(int index = 0; index < matches.size(); index++) {
+            BracketMatch match = matches.get(index);
+            BracketMatch resumedMatch = resumedMatches.get(index);
+
+            // Matches that were underway are open again, since their games don't survive a restart.
+            BracketMatch.State state = match.state() == BracketMatch.State.UNDERWAY ? BracketMatch.State.OPEN : match.state();
+            assertEquals(state, resumedMatch.state(), "State of match " + match.id());
+            assertEquals(match.team1(), resumedMatch.team1(), "First team of match " + match.id());
+            assertEquals(match.team2(), resumedMatch.team2(), "Second team of match " + match.id());
+            assertEquals(match.winner(), resumedMatch.winner(), "Winner of match " + match.id());
+            assertEquals(match.scores(), resumedMatch.scores(), "Scores of match " + match.id());
+        }
+    }
+
+    @Test
+    void refusesResultsThatDontFit() {
+        List<EventTeam> teams = Brackets.teams(4);
+        LocalBracketProvider bracket = new LocalBracketProvider(EliminationType.SINGLE_ELIMINATION, true);
+        bracket.create(teams);
+
+        BracketMatch first = bracket.openMatches().get(0);
+        BracketMatch pending = bracket.matches().stream().filter(match -> match.state() == BracketMatch.State.PENDING).findFirst().orElseThrow();
+        EventTeam outsider = teams.stream().filter(team -> !first.hasTeam(team)).findFirst().orElseThrow();
+
+        assertFalse(bracket.reportResult(pending, teams.get(0), 2, 0, false));
+        assertFalse(bracket.reportResult(first, outsider, 2, 0, false));
+        assertTrue(bracket.reportResult(first, first.team1(), 2, 0, false));
+        assertFalse(bracket.reportResult(first, first.team2(), 2, 0, false));
+        assertEquals(first.team1(), first.winner());
+    }
+
+    @Test
+    void singleEliminationHoldsThirdPlaceMatch() {
+        List<EventTeam> teams = Brackets.teams(8);
+        LocalBracketProvider bracket = new LocalBracketProvider(EliminationType.SINGLE_ELIMINATION, true);
+        bracket.create(teams);
+
+        Brackets.play(bracket, Brackets.favourites(teams));
+
+        assertEquals(teams.subList(0, 4), bracket.standings().subList(0, 4));
+        assertEquals(1, bracket.matches().stream().filter(match -> match.stage() == BracketMatch.Stage.THIRD_PLACE).count());
+    }
+
+    private static BracketMatch reset(LocalBracketProvider bracket) {
+        return bracket.matches().stream()
+                .filter(match -> match.stage() == BracketMatch.Stage.GRAND_FINAL && match.round() == 2)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Stream<Arguments> brackets() {
+        return Stream.of(EliminationType.SINGLE_ELIMINATION, EliminationType.DOUBLE_ELIMINATION)
+                .flatMap(eliminationType -> IntStream.rangeClosed(2, 33).mapToObj(size -> Arguments.of(eliminationType, size)));
+    }
+}
\ No newline at end of file
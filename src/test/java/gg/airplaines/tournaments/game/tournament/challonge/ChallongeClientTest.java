@@ -0,0 +1,190 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.challonge;
+
+import at.stefangeyer.challonge.exception.DataAccessException;
+import gg.airplaines.tournaments.MockPlugin;
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.tournament.EliminationType;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChallongeClientTest {
+    @TempDir
+    File dataFolder;
+
+    private TournamentsPlugin plugin;
+    private FileConfiguration config;
+    private ChallongeClient client;
+
+    @BeforeEach
+    void setUp() {
+        plugin = MockPlugin.create(dataFolder, EliminationType.SINGLE_ELIMINATION);
+        config = plugin.settingsManager().getConfig();
+        config.set("challonge.rate-limit", 0);
+        config.set("challonge.retry.base-delay", 40);
+        config.set("challonge.retry.max-delay", 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if(client != null) {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    void retriesUntilTheCallSucceeds() throws Exception {
+        client = new FakeChallonge().client(plugin);
+
+        assertEquals("done", client.call("test", failing(3, "done")).get(10, TimeUnit.SECONDS));
+        assertEquals(3, client.retries());
+        assertEquals(0, client.failures());
+    }
+
+    @Test
+    void backsOffExponentially() throws Exception {
+        client = new FakeChallonge().client(plugin);
+
+        // Waits are randomized between half and the whole delay, which doubles from 40ms: at least 20 + 40 + 80.
+        long start = System.nanoTime();
+        client.call("test", failing(3, "done")).get(10, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsed >= 140, "Retried after " + elapsed + "ms.");
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() {
+        config.set("challonge.retry.max-attempts", 3);
+        config.set("challonge.retry.base-delay", 1);
+        client = new FakeChallonge().client(plugin);
+
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> future = client.call("test", () -> {
+            attempts.incrementAndGet();
+            throw new DataAccessException("Down.");
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(ChallongeException.class, exception.getCause());
+        assertEquals(3, attempts.get());
+        assertEquals(1, client.failures());
+    }
+
+    @Test
+    void failsFastOnceTheBudgetIsUsedUp() throws Exception {
+        config.set("challonge.retry.max-attempts", 10);
+        config.set("challonge.retry.base-delay", 1);
+        config.set("challonge.retry.budget", 4);
+        client = new FakeChallonge().client(plugin);
+
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> future = client.call("test", () -> {
+            attempts.incrementAndGet();
+            throw new DataAccessException("Down.");
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(exception.getCause().getMessage().contains("budget"), exception.getCause().getMessage());
+        assertEquals(5, attempts.get());
+        assertEquals(0, client.retryTokens());
+
+        // A successful call earns a retry back.
+        assertEquals("up", client.call("test", () -> "up").get(10, TimeUnit.SECONDS));
+        assertEquals(1, client.retryTokens());
+    }
+
+    @Test
+    void doesNotRetryOtherErrors() {
+        client = new FakeChallonge().client(plugin);
+
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> future = client.call("test", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Bug.");
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertEquals(1, attempts.get());
+        assertEquals(0, client.retries());
+    }
+
+    @Test
+    void spreadsCallsUnderTheRateLimit() throws Exception {
+        config.set("challonge.rate-limit", 20);
+        client = new FakeChallonge().client(plugin);
+
+        // 11 calls at 20 a second need 10 gaps of 50ms.
+        long start = System.nanoTime();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for(int call = 0; call < 11; call++) {
+            int number = call;
+            futures.add(client.call("test", () -> number));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsed >= 450, "Made 11 calls in " + elapsed + "ms.");
+    }
+
+    @Test
+    void rejectsCallsAfterShutdown() {
+        client = new FakeChallonge().client(plugin);
+        client.shutdown();
+
+        CompletableFuture<String> future = client.call("test", () -> "late");
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    /**
+     * Creates a call that fails a number of times before it succeeds.
+     */
+    private static <T> ChallongeClient.ChallongeCall<T> failing(int failures, T result) {
+        AtomicInteger attempts = new AtomicInteger();
+
+        return () -> {
+            if(attempts.incrementAndGet() <= failures) {
+                throw new DataAccessException("Attempt " + attempts.get() + " failed.");
+            }
+
+            return result;
+        };
+    }
+}
\ No newline at end of file
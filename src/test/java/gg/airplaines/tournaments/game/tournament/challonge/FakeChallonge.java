@@ -0,0 +1,380 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.challonge;
+
+import at.stefangeyer.challonge.Challonge;
+import at.stefangeyer.challonge.exception.DataAccessException;
+import at.stefangeyer.challonge.model.Match;
+import at.stefangeyer.challonge.model.Participant;
+import at.stefangeyer.challonge.model.Tournament;
+import at.stefangeyer.challonge.model.enumeration.MatchState;
+import at.stefangeyer.challonge.model.enumeration.TournamentType;
+import at.stefangeyer.challonge.model.query.MatchQuery;
+import at.stefangeyer.challonge.model.query.ParticipantQuery;
+import at.stefangeyer.challonge.model.query.TournamentQuery;
+import gg.airplaines.tournaments.TournamentsPlugin;
+import gg.airplaines.tournaments.game.tournament.EliminationType;
+import gg.airplaines.tournaments.game.tournament.bracket.BracketMatch;
+import gg.airplaines.tournaments.game.tournament.bracket.LocalBracketProvider;
+import gg.airplaines.tournaments.game.tournament.team.EventTeam;
+import gg.airplaines.tournaments.game.tournament.team.EventTeamManager;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Stands in for Challonge in tests, answering the calls ChallongeBracketProvider makes.
+ * The tournament is run by a bracket of its own, so later matches are filled in as results are reported, like on Challonge.
+ * Every call waits a random latency, and fails at random before doing anything if a failure rate is set.
+ */
+public class FakeChallonge {
+    private static final long TOURNAMENT_ID = 1;
+    private static final long FIRST_PARTICIPANT_ID = 1000;
+    private static final long FIRST_MATCH_ID = 5000;
+    private static final OffsetDateTime CREATED = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final Challonge challonge = mock(Challonge.class);
+    private final Random random;
+    private final long minLatency;
+    private final long maxLatency;
+    private final double failureRate;
+    private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+    private final AtomicLong failures = new AtomicLong();
+    private final Map<Long, Match> reported = new HashMap<>();
+    private final Map<Long, Long> versions = new HashMap<>();
+    private final List<EventTeam> participants = new ArrayList<>();
+    private final CompletableFuture<Void> finalized = new CompletableFuture<>();
+    private Tournament tournament;
+    private LocalBracketProvider bracket;
+
+    /**
+     * Creates a Challonge that answers straight away and never fails.
+     */
+    public FakeChallonge() {
+        this(0, 0, 0, 0);
+    }
+
+    /**
+     * Creates the fake.
+     * @param minLatency Shortest time a call takes, in milliseconds.
+     * @param maxLatency Longest time a call takes, in milliseconds.
+     * @param failureRate Chance of a call failing, from 0 to 1.
+     * @param seed Seed of the latencies and failures.
+     */
+    public FakeChallonge(long minLatency, long maxLatency, double failureRate, long seed) {
+        this.random = new Random(seed);
+        this.minLatency = minLatency;
+        this.maxLatency = maxLatency;
+        this.failureRate = failureRate;
+
+        try {
+            doAnswer(invocation -> call("createTournament", () -> createTournament(invocation.getArgument(0)))).when(challonge).createTournament(any(TournamentQuery.class));
+            doAnswer(invocation -> call("bulkAddParticipants", () -> bulkAddParticipants(invocation.getArgument(1)))).when(challonge).bulkAddParticipants(any(Tournament.class), any());
+            doAnswer(invocation -> call("startTournament", this::startTournament)).when(challonge).startTournament(any(Tournament.class));
+            doAnswer(invocation -> call("getTournament", () -> getTournament(invocation.getArgument(0)))).when(challonge).getTournament(any(String.class));
+            doAnswer(invocation -> call("getMatches", this::getMatches)).when(challonge).getMatches(any(Tournament.class));
+            doAnswer(invocation -> call("markMatchAsUnderway", () -> markUnderway(invocation.getArgument(0), true))).when(challonge).markMatchAsUnderway(any(Match.class));
+            doAnswer(invocation -> call("unmarkMatchAsUnderway", () -> markUnderway(invocation.getArgument(0), false))).when(challonge).unmarkMatchAsUnderway(any(Match.class));
+            doAnswer(invocation -> call("updateMatch", () -> updateMatch(invocation.getArgument(0), invocation.getArgument(1)))).when(challonge).updateMatch(any(Match.class), any(MatchQuery.class));
+            doAnswer(invocation -> call("finalizeTournament", this::finalizeTournament)).when(challonge).finalizeTournament(any(Tournament.class));
+        }
+        catch (DataAccessException exception) {
+            // Stubbing never calls the real api.
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Creates a client that makes its calls to this fake.
+     * @param plugin Plugin the client reads its settings from.
+     * @return Challonge client.
+     */
+    public ChallongeClient client(TournamentsPlugin plugin) {
+        return new ChallongeClient(plugin, challonge);
+    }
+
+    /**
+     * Get the Challonge api answered by this fake.
+     * @return Mocked Challonge api.
+     */
+    public Challonge challonge() {
+        return challonge;
+    }
+
+    /**
+     * Get the number of times a call was made, including ones that failed.
+     * @param method Name of the Challonge method.
+     * @return Number of calls.
+     */
+    public long calls(String method) {
+        AtomicLong count = calls.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Get the number of calls made to every method.
+     * @return Number of calls.
+     */
+    public long totalCalls() {
+        return calls.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    /**
+     * Get the number of calls that were made to fail.
+     * @return Number of failed calls.
+     */
+    public long failures() {
+        return failures.get();
+    }
+
+    /**
+     * Get the future completed once the tournament is finalized.
+     * @return Future of the finalization.
+     */
+    public CompletableFuture<Void> finalized() {
+        return finalized;
+    }
+
+    /**
+     * Get the final standings of the tournament on Challonge.
+     * @return Names of the participants, from first place down.
+     */
+    public synchronized List<String> standings() {
+        return bracket.standings().stream().map(EventTeam::name).toList();
+    }
+
+    private <T> T call(String method, Call<T> call) throws DataAccessException {
+        calls.computeIfAbsent(method, key -> new AtomicLong()).incrementAndGet();
+
+        long latency = maxLatency > minLatency ? minLatency + (long) (random.nextDouble() * (maxLatency - minLatency)) : minLatency;
+        if(latency > 0) {
+            try {
+                Thread.sleep(latency);
+            }
+            catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new DataAccessException("Interrupted while calling " + method + ".");
+            }
+        }
+
+        if(failureRate > 0 && random.nextDouble() < failureRate) {
+            failures.incrementAndGet();
+            throw new DataAccessException("Injected failure of " + method + ".");
+        }
+
+        synchronized(this) {
+            return call.call();
+        }
+    }
+
+    private Tournament createTournament(TournamentQuery query) {
+        tournament = Tournament.builder()
+                .id(TOURNAMENT_ID)
+                .url("fake_" + TOURNAMENT_ID)
+                .name(query.getName())
+                .tournamentType(query.getTournamentType())
+                .holdThirdPlaceMatch(Boolean.TRUE.equals(query.getHoldThirdPlaceMatch()))
+                .build();
+        return tournament;
+    }
+
+    private List<Participant> bulkAddParticipants(List<ParticipantQuery> queries) {
+        List<ParticipantQuery> seeded = new ArrayList<>(queries);
+        seeded.sort(Comparator.comparing(ParticipantQuery::getSeed));
+
+        EventTeamManager teamManager = new EventTeamManager();
+        List<Participant> added = new ArrayList<>();
+        for(ParticipantQuery query : seeded) {
+            long id = FIRST_PARTICIPANT_ID + query.getSeed();
+            participants.add(teamManager.createTeam(query.getName(), List.of(), id));
+            added.add(Participant.builder().id(id).tournamentId(TOURNAMENT_ID).name(query.getName()).seed(query.getSeed()).build());
+        }
+
+        return added;
+    }
+
+    private Tournament startTournament() {
+        EliminationType eliminationType = tournament.getTournamentType() == TournamentType.DOUBLE_ELIMINATION ? EliminationType.DOUBLE_ELIMINATION : EliminationType.SINGLE_ELIMINATION;
+        bracket = new LocalBracketProvider(eliminationType, tournament.getHoldThirdPlaceMatch());
+        bracket.create(participants);
+        return tournament;
+    }
+
+    private Tournament getTournament(String url) throws DataAccessException {
+        if(tournament == null || !tournament.getUrl().equals(url)) {
+            throw new DataAccessException("404 Tournament " + url + " not found.");
+        }
+
+        return tournament;
+    }
+
+    private List<Match> getMatches() throws DataAccessException {
+        started();
+
+        // Challonge doesn't list byes.
+        List<Match> matches = new ArrayList<>();
+        for(BracketMatch match : bracket.matches()) {
+            if(!match.bye()) {
+                matches.add(match(match));
+            }
+        }
+
+        return matches;
+    }
+
+    private Match markUnderway(Match challongeMatch, boolean underway) throws DataAccessException {
+        BracketMatch match = find(challongeMatch);
+
+        if(match.state() == BracketMatch.State.PENDING || match.state() == BracketMatch.State.COMPLETE) {
+            throw new DataAccessException("422 Match " + challongeMatch.getId() + " is not open.");
+        }
+
+        if(underway) {
+            bracket.markUnderway(match);
+        }
+        else {
+            bracket.unmarkUnderway(match);
+        }
+
+        return match(match);
+    }
+
+    private Match updateMatch(Match challongeMatch, MatchQuery query) throws DataAccessException {
+        BracketMatch match = find(challongeMatch);
+        EventTeam winner = participant(query.getWinnerId());
+
+        if(winner == null || !match.hasTeam(winner)) {
+            throw new DataAccessException("422 Winner " + query.getWinnerId() + " is not in match " + challongeMatch.getId() + ".");
+        }
+
+        // Reporting the same winner again only updates the scores, which the local bracket never changes.
+        if(match.state() == BracketMatch.State.COMPLETE && winner.equals(match.winner())) {
+            return match(match);
+        }
+
+        // Scores are ordered by player slot.
+        String[] scores = query.getScoresCsv().split("-");
+        boolean firstWon = winner.equals(match.team1());
+        int winnerScore = Integer.parseInt(firstWon ? scores[0] : scores[1]);
+        int loserScore = Integer.parseInt(firstWon ? scores[1] : scores[0]);
+
+        if(!bracket.reportResult(match, winner, winnerScore, loserScore, false)) {
+            throw new DataAccessException("422 Match " + challongeMatch.getId() + " can't be reported.");
+        }
+
+        return match(match);
+    }
+
+    private Tournament finalizeTournament() throws DataAccessException {
+        started();
+
+        if(!bracket.isComplete()) {
+            throw new DataAccessException("422 Tournament has matches left to play.");
+        }
+
+        finalized.complete(null);
+        return tournament;
+    }
+
+    private void started() throws DataAccessException {
+        if(bracket == null) {
+            throw new DataAccessException("422 Tournament has not been started.");
+        }
+    }
+
+    private BracketMatch find(Match challongeMatch) throws DataAccessException {
+        started();
+
+        for(BracketMatch match : bracket.matches()) {
+            if(FIRST_MATCH_ID + match.id() == challongeMatch.getId()) {
+                return match;
+            }
+        }
+
+        throw new DataAccessException("404 Match " + challongeMatch.getId() + " not found.");
+    }
+
+    private EventTeam participant(Long id) {
+        for(EventTeam participant : participants) {
+            if(participant.challongeID().equals(id)) {
+                return participant;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get Challonge's copy of a match.
+     * Its update time moves forward whenever it changed since it was last handed out.
+     * @param match Match of the fake's bracket.
+     * @return Challonge match.
+     */
+    private Match match(BracketMatch match) {
+        long id = FIRST_MATCH_ID + match.id();
+        MatchState state = switch (match.state()) {
+            case PENDING -> MatchState.PENDING;
+            case OPEN, UNDERWAY -> MatchState.OPEN;
+            case COMPLETE -> MatchState.COMPLETE;
+        };
+
+        Match.MatchBuilder builder = Match.builder()
+                .id(id)
+                .tournamentId(TOURNAMENT_ID)
+                .round(match.stage() == BracketMatch.Stage.LOSERS ? -match.round() : match.round())
+                .player1Id(challongeID(match.team1()))
+                .player2Id(challongeID(match.team2()))
+                .winnerId(challongeID(match.winner()))
+                .loserId(challongeID(match.loser()))
+                .state(state)
+                .underwayAt(match.state() == BracketMatch.State.UNDERWAY ? CREATED : null)
+                .scoresCsv(match.scores());
+
+        Match current = builder.build();
+        if(!current.equals(reported.get(id))) {
+            reported.put(id, current);
+            versions.merge(id, 1L, Long::sum);
+        }
+
+        return builder.updatedAt(CREATED.plusSeconds(versions.get(id))).build();
+    }
+
+    private static Long challongeID(EventTeam team) {
+        return team == null ? null : team.challongeID();
+    }
+
+    @FunctionalInterface
+    private interface Call<T> {
+        T call() throws DataAccessException;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+/*
+ * This file is part of Tournament, licensed under the MIT License.
+ *
+ *  Copyright (c) airplanes.gg
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package gg.airplaines.tournaments.game.tournament.team;
+
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BalancedTeamFormationTest {
+
+    @ParameterizedTest
+    @CsvSource({"16, 2", "16, 4", "30, 3", "17, 4", "9, 2", "3, 3"})
+    void formsEvenTeams(int playerCount, int teamSize) {
+        Map<Player, Double> ratings = ratings(playerCount, new Random(playerCount));
+        List<Player> players = new ArrayList<>(ratings.keySet());
+
+        List<List<Player>> teams = new BalancedTeamFormation(ratings::get, 10).form(players, teamSize);
+
+        // Every player is in exactly one team, and only the last team can be short.
+        List<Player> placed = new ArrayList<>();
+        teams.forEach(placed::addAll);
+        assertEquals(playerCount, placed.size());
+        assertEquals(new HashSet<>(players), new HashSet<>(placed));
+
+        int fullTeams = playerCount / teamSize;
+        assertEquals(fullTeams + (playerCount % teamSize == 0 ? 0 : 1), teams.size());
+        for(int team = 0; team < fullTeams; team++) {
+            assertEquals(teamSize, teams.get(team).size());
+        }
+
+        // The full teams should be far closer together than the spread of the players.
+        if(fullTeams >= 2) {
+            double gap = gap(teams.subList(0, fullTeams), ratings);
+            double spread = Collections.max(ratings.values()) - Collections.min(ratings.values());
+            assertTrue(gap < spread / teamSize, "Teams are " + gap + " apart, players span " + spread + ".");
+        }
+    }
+
+    @Test
+    void splitsAPerfectlyBalancedField() {
+        // Ratings 1 to 8 in pairs can always be split into pairs adding up to 9.
+        Map<Player, Double> ratings = new LinkedHashMap<>();
+        for(int rating = 1; rating <= 8; rating++) {
+            ratings.put(mock(Player.class), (double) rating);
+        }
+
+        List<List<Player>> teams = new BalancedTeamFormation(ratings::get, 10).form(new ArrayList<>(ratings.keySet()), 2);
+
+        assertEquals(4, teams.size());
+        assertEquals(0, gap(teams, ratings), 0.0001);
+    }
+
+    @Test
+    void swapsCloseTheGap() {
+        Map<Player, Double> ratings = ratings(24, new Random(24));
+        List<Player> players = new ArrayList<>(ratings.keySet());
+
+        double withoutSwaps = gap(new BalancedTeamFormation(ratings::get, 0).form(players, 4), ratings);
+        double withSwaps = gap(new BalancedTeamFormation(ratings::get, 50).form(players, 4), ratings);
+
+        assertTrue(withSwaps <= withoutSwaps, "Swapping made the teams " + withSwaps + " apart instead of " + withoutSwaps + ".");
+    }
+
+    @Test
+    void formsNothingWithoutPlayers() {
+        assertTrue(new BalancedTeamFormation(player -> 1000, 10).form(List.of(), 2).isEmpty());
+    }
+
+    private static Map<Player, Double> ratings(int count, Random random) {
+        Map<Player, Double> ratings = new LinkedHashMap<>();
+
+        // Ratings are kept distinct, so the order players are handed out in doesn't depend on the shuffle.
+        for(int player = 0; player < count; player++) {
+            ratings.put(mock(Player.class), 800 + random.nextInt(800) + player / 1000.0);
+        }
+
+        return ratings;
+    }
+
+    /**
+     * Get the difference between the highest and lowest average rating of the teams.
+     */
+    private static double gap(List<List<Player>> teams, Map<Player, Double> ratings) {
+        double highest = Double.NEGATIVE_INFINITY;
+        double lowest = Double.POSITIVE_INFINITY;
+
+        for(List<Player> team : teams) {
+            double average = team.stream().mapToDouble(ratings::get).average().orElse(0);
+            highest = Math.max(highest, average);
+            lowest = Math.min(lowest, average);
+        }
+
+        return highest - lowest;
+    }
+}
\ No newline at end of file